@@ -28,8 +28,8 @@ public class ServerApplication {
 				registry.addMapping("/**")
 						.allowedOrigins("*") // SALLII KAIKKI ORIGINIT, TARKISTA MYÖHEMMIN TURVALLISUUS
 						.allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
-						.allowedHeaders("Authorization", "content-type")
-						.exposedHeaders("Authorization");
+						.allowedHeaders("Authorization", "content-type", "If-None-Match", "Last-Event-ID")
+						.exposedHeaders("Authorization", "ETag");
 			}
     	};
 	}
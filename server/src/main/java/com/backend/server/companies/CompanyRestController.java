@@ -14,20 +14,27 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.backend.server.companies.DTO.ApprovedEmailsDTO;
 import com.backend.server.companies.DTO.NewMailDTO;
 import com.backend.server.companies.DTO.SettingsDTO;
 import com.backend.server.companies.DTO.UserListDTO;
+import com.backend.server.security.AuthContext;
+import com.backend.server.security.AuthPrincipal;
+import com.backend.server.security.KioskDeviceService;
+import com.backend.server.security.RequireRole;
 import com.backend.server.security.SecurityService;
+import com.backend.server.security.DTO.KioskDeviceDTO;
 import com.backend.server.users.User;
 import com.backend.server.users.UserRepository;
+import com.backend.server.utility.ChangeVersions;
 import com.backend.server.utility.ImageUploadService;
+import com.backend.server.utility.Role;
 
 import lombok.RequiredArgsConstructor;
 
@@ -42,15 +49,16 @@ public class CompanyRestController {
     private final CompanyAppEmailsService approvedEmails;
     private final CompAppEmailsRepository compAppEmailsRepository;
     private final ImageUploadService imageUploadService;
+    private final KioskDeviceService kioskDeviceService;
+    private final AuthContext authContext;
+    private final ChangeVersions changeVersions;
     
+@RequireRole(Role.SUPERVISOR)
 @GetMapping("/workers")  // kaikki yrityksen työntekijät
-public ResponseEntity<?> getCompanysWorkers(@RequestHeader("Authorization") String token) {
+public ResponseEntity<?> getCompanysWorkers() {
         try {
-            // käyttäjätarkistus ja roolitarkistus
-            User user = securityService.getUserFromToken(token);
-            if(!securityService.isSuperVisor(user.getRole())){
-                return ResponseEntity.status(401).body("Unauthorized");
-            }
+            // käyttäjä AuthContextista, rooli tarkistettu jo @RequireRole annotaatiolla
+            User user = authContext.getUser();
             // hae käyttäjän company
             Company company = user.getCompany();
             // hae companyyn kuuluvat työntekijät
@@ -78,14 +86,12 @@ public ResponseEntity<?> getCompanysWorkers(@RequestHeader("Authorization") Stri
 }
 
 // Yrityksen esihyväksytyt sähköpostit // TODO: TEST
+@RequireRole(Role.SUPERVISOR)
 @GetMapping("/workers/email")
-public ResponseEntity<?> getApprovedEmails(@RequestHeader("Authorization") String token) {
+public ResponseEntity<?> getApprovedEmails() {
     try {
-        // käyttäjätarkistus ja roolitarkistus
-        User user = securityService.getUserFromToken(token);
-        if(!securityService.isSuperVisor(user.getRole())){
-            return ResponseEntity.status(401).body("Unauthorized");
-        }
+        // käyttäjä AuthContextista, rooli tarkistettu jo @RequireRole annotaatiolla
+        User user = authContext.getUser();
         // hae käyttäjän company
         Company company = user.getCompany();
         // hae companyyn kuuluvat työntekijät DTOlle
@@ -101,20 +107,28 @@ public ResponseEntity<?> getApprovedEmails(@RequestHeader("Authorization") Strin
 }
 
 // hae yrityksen asetukset
+@RequireRole
 @GetMapping("/settings")
-public ResponseEntity<?> getCompanySettings(@RequestHeader("Authorization") String token) {
+public ResponseEntity<?> getCompanySettings(WebRequest request) {
     try {
-        // käyttäjätarkistus
-        User user = securityService.getUserFromToken(token);
-        
+        // käyttäjätarkistus, välimuistista jos mahdollista
+        AuthPrincipal user = authContext.getPrincipal();
+
+        // ETag asetusten versiosta, 304 ennen käyttäjän ja companyn hakua kannasta
+        String etag = changeVersions.etag("cs", user.getCompanyId(),
+                changeVersions.version(ChangeVersions.COMPANY_SETTINGS, user.getCompanyId()));
+        if (request.checkNotModified(etag)) {
+            return ChangeVersions.notModified(etag);
+        }
+
         // hae käyttäjän company
-        Company company = user.getCompany();
+        Company company = companyService.getCompanyById(user.getCompanyId());
         // hae companyyn kuuluvat työntekijät DTOlle
         Map<String, Object> settings = company.getSettings();
         if (settings == null){
             settings = new HashMap<>();
         }
-        return ResponseEntity.ok(settings);
+        return ChangeVersions.ok(etag).body(settings);
 
     } catch (IllegalArgumentException e) {
         return ResponseEntity.status(401).body(e.getMessage());
@@ -124,14 +138,12 @@ public ResponseEntity<?> getCompanySettings(@RequestHeader("Authorization") Stri
 }
     
 
+@RequireRole(Role.SUPERVISOR)
 @PostMapping("/workers/add")
-public ResponseEntity<?> addWorkerEmail(@RequestHeader("Authorization")String token, @RequestBody NewMailDTO newMailDTO){
+public ResponseEntity<?> addWorkerEmail( @RequestBody NewMailDTO newMailDTO){
     try {
-        // käyttäjätarkistus ja roolitarkistus
-        User user = securityService.getUserFromToken(token);
-        if(!securityService.isSuperVisor(user.getRole())){
-            return ResponseEntity.status(401).body("Unauthorized");
-        }
+        // käyttäjä AuthContextista, rooli tarkistettu jo @RequireRole annotaatiolla
+        User user = authContext.getUser();
         // hae käyttäjän company
         Company company = user.getCompany();
         // lisää sähköposti companyn hyväksyttyihin sähköposteihin
@@ -160,14 +172,12 @@ public ResponseEntity<?> addWorkerEmail(@RequestHeader("Authorization")String to
 
 }
 
+@RequireRole(Role.MASTER)
 @DeleteMapping("/workers/{userId}")
-public ResponseEntity<?> deleteWorkerByID(@RequestHeader("Authorization")String token, @PathVariable Long userId){
+public ResponseEntity<?> deleteWorkerByID(@PathVariable Long userId){
     try {
-        // käyttäjätarkistus ja roolitarkistus
-        User user = securityService.getUserFromToken(token);
-        if(!securityService.isMaster(user.getRole())){
-            return ResponseEntity.status(401).body("Unauthorized");
-        }
+        // käyttäjä AuthContextista, rooli tarkistettu jo @RequireRole annotaatiolla
+        User user = authContext.getUser();
         // hae käyttäjän jonka id annettu email, ja poista käyttäjä ja preapproved email, käytetään optionalia
         Optional<User> workerOptional = userRepository.findById(userId);
         if (!workerOptional.isPresent()){
@@ -199,17 +209,15 @@ public ResponseEntity<?> deleteWorkerByID(@RequestHeader("Authorization")String
     }
 }
 
+@RequireRole(Role.MASTER)
 @DeleteMapping("/workers/email/{email}")  // Poistaa työntekijän sähköpostin hyväksytyistä sähköposteista JA KATSOO ONKO SÄHKÖPOSTILLA KÄYTTÄJÄÄ, JOKA MYÖS POISTETAAN
-public ResponseEntity<?> deleteApprovedEmail(@RequestHeader("Authorization")String token, @PathVariable String email){
+public ResponseEntity<?> deleteApprovedEmail(@PathVariable String email){
     
     try {
         String response = "";
         User userToDelete = null;
-        // käyttäjätarkistus ja roolitarkistus, sallitaan vain masterille
-        User user = securityService.getUserFromToken(token);
-        if(!securityService.isMaster(user.getRole())){
-            return ResponseEntity.status(401).body("Unauthorized");
-        }
+        // käyttäjä AuthContextista, rooli tarkistettu jo @RequireRole annotaatiolla, sallitaan vain masterille
+        User user = authContext.getUser();
         // katso onko sähköpostilla käyttäjää
         Optional<User> userOptional = userRepository.findByEmail(email);
         if (userOptional.isPresent()){
@@ -253,18 +261,16 @@ public ResponseEntity<?> deleteApprovedEmail(@RequestHeader("Authorization")Stri
 }
 
 // Päivitä työntekijän rooli, supervisor ja master
+@RequireRole(Role.SUPERVISOR)
 @PutMapping("/workers/{userId}")
-public ResponseEntity<?> updateRole(@RequestHeader("Authorization")String token, @PathVariable Long userId, @RequestBody NewMailDTO DTO){
+public ResponseEntity<?> updateRole(@PathVariable Long userId, @RequestBody NewMailDTO DTO){
     try {
           // katso että DTO:ssa on rooli
         if (DTO.getRole() == null){
             return ResponseEntity.status(401).body("Role not found, send role in JSON format");
         }
-        // käyttäjätarkistus ja roolitarkistus
-        User user = securityService.getUserFromToken(token);
-        if(!securityService.isSuperVisor(user.getRole())){
-            return ResponseEntity.status(401).body("Unauthorized");
-        }
+        // käyttäjä AuthContextista, rooli tarkistettu jo @RequireRole annotaatiolla
+        User user = authContext.getUser();
 
         
         // jos roolia päivitetään, katso että uusi rooli ei ole korkeampi kuin lisääjän rooli
@@ -304,18 +310,16 @@ public ResponseEntity<?> updateRole(@RequestHeader("Authorization")String token,
 }
 
 // Muokkaa esihyväksyttyä sähköpostia, supervisor ja master. Vain jos sähköpostilla ei ole vielä rekisteröity
+@RequireRole(Role.SUPERVISOR)
 @PutMapping("/workers/email/{oldEmail}")
-public ResponseEntity<?> updateApprovedEmail(@RequestHeader("Authorization") String token, @PathVariable String oldEmail, @RequestBody NewMailDTO DTO){
+public ResponseEntity<?> updateApprovedEmail(@PathVariable String oldEmail, @RequestBody NewMailDTO DTO){
     try {
         // katso että DTO:ssa on email
         if (DTO.getEmail() == null){
             return ResponseEntity.status(401).body("Email not found, send email in JSON format");
         }
-        // käyttäjätarkistus ja roolitarkistus
-        User user = securityService.getUserFromToken(token);
-        if(!securityService.isSuperVisor(user.getRole())){
-            return ResponseEntity.status(401).body("Unauthorized");
-        }
+        // käyttäjä AuthContextista, rooli tarkistettu jo @RequireRole annotaatiolla
+        User user = authContext.getUser();
         // jos roolia päivitetään, katso että uusi rooli ei ole korkeampi kuin lisääjän rooli
         if (DTO.getRole() != null && DTO.getRole().ordinal() > user.getRole().ordinal()){ // worker = 0, supervisor = 1, master = 2
             return ResponseEntity.status(401).body("Cannot add higher role than your own");
@@ -360,14 +364,12 @@ public ResponseEntity<?> updateApprovedEmail(@RequestHeader("Authorization") Str
 }
 
 // Muokkaa companyn settingsejä, vain master
+@RequireRole(Role.MASTER)
 @PutMapping("/settings")
-public ResponseEntity<?> updateCompanySettings(@RequestHeader("Authorization")String token, @RequestBody SettingsDTO settingsDTO){
+public ResponseEntity<?> updateCompanySettings( @RequestBody SettingsDTO settingsDTO){
     try {
-        // käyttäjätarkistus ja roolitarkistus
-        User user = securityService.getUserFromToken(token);
-        if(!securityService.isMaster(user.getRole())){
-            return ResponseEntity.status(401).body("Unauthorized");
-        }
+        // käyttäjä AuthContextista, rooli tarkistettu jo @RequireRole annotaatiolla
+        User user = authContext.getUser();
         // hae käyttäjän company
         Company company = user.getCompany();
 
@@ -397,13 +399,11 @@ public ResponseEntity<?> updateCompanySettings(@RequestHeader("Authorization")St
     }
 }
 
+@RequireRole(Role.MASTER)
 @PostMapping("/backgroundimg")
-public ResponseEntity<?> uploadBackgroundImage(@RequestHeader("Authorization") String token, @RequestParam("image") MultipartFile image){
+public ResponseEntity<?> uploadBackgroundImage( @RequestParam("image") MultipartFile image){
     try {
-        User user = securityService.getUserFromToken(token);
-        if(!securityService.isMaster(user.getRole())){
-            return ResponseEntity.status(401).body("Unauthorized");
-        }
+        User user = authContext.getUser();
         // hae käyttäjän company
         Company company = user.getCompany();
         // tallenna kuva
@@ -428,13 +428,11 @@ public ResponseEntity<?> uploadBackgroundImage(@RequestHeader("Authorization") S
     }
 }
 
+@RequireRole(Role.MASTER)
 @DeleteMapping("/backgroundimg")
-public ResponseEntity<?> deleteBackgroundImage(@RequestHeader("Authorization")String token){   // poistaa tallennetun urlin, ja companyid perusteella poistaa bucketista kuvan
+public ResponseEntity<?> deleteBackgroundImage(){   // poistaa tallennetun urlin, ja companyid perusteella poistaa bucketista kuvan
     try {
-        User user = securityService.getUserFromToken(token);
-        if(!securityService.isMaster(user.getRole())){
-            return ResponseEntity.status(401).body("Unauthorized");
-        }
+        User user = authContext.getUser();
         // hae käyttäjän company
         Company company = user.getCompany();
         // hae nykyiset asetukset
@@ -462,4 +460,54 @@ public ResponseEntity<?> deleteBackgroundImage(@RequestHeader("Authorization")St
         return ResponseEntity.status(401).body(e.getMessage());
     }
 }
+
+// Leimauskioskin laiteavaimen luonti, supervisor ja master. Avain palautetaan vain tässä vastauksessa.
+@RequireRole(Role.SUPERVISOR)
+@PostMapping("/kiosk")
+public ResponseEntity<?> createKioskDevice( @RequestBody KioskDeviceDTO DTO){
+    try {
+        User user = authContext.getUser();
+        KioskDeviceDTO created = kioskDeviceService.createDevice(user.getCompany(), DTO.getName());
+        return ResponseEntity.ok(created);
+    }
+    catch (IllegalArgumentException e) {
+        return ResponseEntity.status(401).body(e.getMessage());
+    }
+    catch (Exception e) {
+        return ResponseEntity.status(401).body(e.getMessage());
+    }
+}
+
+// companyn kioskit, ilman avaimia
+@RequireRole(Role.SUPERVISOR)
+@GetMapping("/kiosk")
+public ResponseEntity<?> getKioskDevices(){
+    try {
+        User user = authContext.getUser();
+        return ResponseEntity.ok(kioskDeviceService.getDevices(user.getCompany().getId()));
+    }
+    catch (IllegalArgumentException e) {
+        return ResponseEntity.status(401).body(e.getMessage());
+    }
+    catch (Exception e) {
+        return ResponseEntity.status(401).body(e.getMessage());
+    }
+}
+
+// kioskin avaimen mitätöinti, esim. kadonnut laite
+@RequireRole(Role.SUPERVISOR)
+@DeleteMapping("/kiosk/{deviceId}")
+public ResponseEntity<?> deleteKioskDevice(@PathVariable Long deviceId){
+    try {
+        User user = authContext.getUser();
+        kioskDeviceService.deleteDevice(deviceId, user.getCompany().getId());
+        return ResponseEntity.ok("Kiosk device deleted");
+    }
+    catch (IllegalArgumentException e) {
+        return ResponseEntity.status(404).body(e.getMessage());
+    }
+    catch (Exception e) {
+        return ResponseEntity.status(401).body(e.getMessage());
+    }
+}
 }
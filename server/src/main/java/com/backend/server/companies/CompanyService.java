@@ -5,8 +5,10 @@ import java.util.List;
 
 import org.springframework.stereotype.Service;
 
+import com.backend.server.shifts.RosterCache;
 import com.backend.server.users.User;
 import com.backend.server.users.UserRepository;
+import com.backend.server.utility.ChangeVersions;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +19,8 @@ import lombok.RequiredArgsConstructor;
 public class CompanyService {
     private final CompanyRepository companyRepository;
     private final UserRepository userRepository;
+    private final RosterCache rosterCache;
+    private final ChangeVersions changeVersions;
 
     
     public Company saveCompany(Company company) {
@@ -27,7 +31,10 @@ public class CompanyService {
         Company existingCompany = companyRepository.findById(company.getId()).orElse(null);
         existingCompany.setCompanyName(company.getCompanyName());
         existingCompany.setSettings(company.getSettings());
-        return companyRepository.save(existingCompany);
+        Company saved = companyRepository.save(existingCompany);
+        rosterCache.invalidate(saved.getId());  // companyName työvuorolistoissa
+        changeVersions.bump(ChangeVersions.COMPANY_SETTINGS, saved.getId());  // /api/company/settings ETag
+        return saved;
     }
 
     public Company getCompanyById(Long id) {
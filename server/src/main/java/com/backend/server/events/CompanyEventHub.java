@@ -0,0 +1,266 @@
+package com.backend.server.events;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.backend.server.events.DTO.CompanyEventDTO;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+// Companykohtainen tapahtumakanava (SSE, /api/events) leimauksille ja työvuorojen muutoksille, jotta kioskit ja
+// dashboardit eivät pollaa /punchclock ja /shifts/everyone listoja. Jokaisella companyllä rengaspuskuri viimeisistä
+// tapahtumista: uudelleen yhdistävä client saa Last-Event-ID:n jälkeiset tapahtumat, ja jos ne ovat jo pudonneet
+// puskurista, "reset" tapahtuman (hae koko tila uudelleen). Jokaisella clientillä oma rajattu jono, jota pieni
+// säiepooli purkaa yksi lähetys kerrallaan, joten tapahtumat menevät clientille järjestyksessä, leimaus ei odota
+// lähetystä, eikä jumittunut yhteys pysäytä muiden lähetyksiä. Jonon täyttyessä jäljessä oleva client suljetaan,
+// ja se yhdistää uudelleen Last-Event-ID:llä.
+// Toimii yhden instanssin sisällä, kuten PresenceIndex.
+@Component
+public class CompanyEventHub {
+
+    private static final Object HEARTBEAT = new Object();  // jonossa tapahtumien seassa, lähetetään kommenttina
+
+    private final int bufferSize;
+    private final int maxConnectionsPerCompany;
+    private final long emitterTimeoutMillis;
+    private final int clientQueueSize;
+    // id on muotoa <käynnistys>-<numero> kuten ChangeVersions ETagit: numerointi alkaa alusta joka käynnistyksessä,
+    // joten edellisen käynnistyksen id ei saa osua uusiin tapahtumiin
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+
+    public CompanyEventHub(MeterRegistry meterRegistry,
+                           @Value("${events.bufferSize:500}") int bufferSize,
+                           @Value("${events.maxConnectionsPerCompany:50}") int maxConnectionsPerCompany,
+                           @Value("${events.emitterTimeoutMs:1800000}") long emitterTimeoutMillis,
+                           @Value("${events.clientQueueSize:100}") int clientQueueSize,
+                           @Value("${events.senderThreads:4}") int senderThreads) {
+        this.bufferSize = Math.max(1, bufferSize);
+        this.maxConnectionsPerCompany = maxConnectionsPerCompany;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.clientQueueSize = Math.max(1, clientQueueSize);
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "company-events-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("company_events.connections", channels,
+                c -> c.values().stream().mapToInt(channel -> channel.clients.size()).sum())
+            .register(meterRegistry);
+    }
+
+    // tapahtuma companyn clienteille. Transaktion sisällä lähetetään vasta commitin jälkeen, rollback ei lähetä mitään
+    public void publish(Long companyId, String type, Object data) {
+        if (companyId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishNow(companyId, type, data);
+                }
+            });
+        } else {
+            publishNow(companyId, type, data);
+        }
+    }
+
+    // uusi client, lastEventId (Last-Event-ID) null jos ensimmäinen yhteys. Liikaa yhteyksiä -> IllegalStateException (429)
+    public SseEmitter subscribe(Long companyId, String lastEventId) {
+        Long lastId = null;
+        boolean otherEpoch = false;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            lastId = parseId(lastEventId.trim());
+            otherEpoch = lastId == null;  // toinen käynnistys tai tuntematon muoto
+        }
+        Channel channel = channels.computeIfAbsent(companyId, id -> new Channel());
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Client client = new Client(emitter);
+        synchronized (channel) {
+            if (channel.clients.size() >= maxConnectionsPerCompany) {
+                throw new IllegalStateException("Too many event connections");
+            }
+            // puskurista uudelleenlähetys ja lisäys samassa lukossa kuin publish, ei väliin jääviä eikä tuplia
+            List<CompanyEventDTO> replay = null;
+            boolean reset = false;
+            if (otherEpoch) {
+                reset = true;
+            } else if (lastId != null) {
+                // puskurista pudonnut jotain uudempaa
+                long since = lastId;
+                reset = since < channel.lastDroppedId || since > sequence.get();
+                replay = channel.buffer.stream().filter(event -> event.getId() > since).toList();
+            }
+            // uudelleenlähetys ohittaa jonon rajan, puskuri on jo rajattu
+            if (reset) {
+                client.queue.addLast(new CompanyEventDTO(sequence.get(), "reset", null));
+            } else if (replay != null) {
+                client.queue.addAll(replay);
+            }
+            channel.clients.add(client);
+        }
+        emitter.onCompletion(() -> remove(channel, client));
+        emitter.onTimeout(() -> remove(channel, client));
+        emitter.onError(error -> remove(channel, client));
+        drainLater(channel, client);
+        return emitter;
+    }
+
+    // pitää yhteyden auki proxyjen (heroku router 55s) yli ja huomaa katkenneet yhteydet
+    @Scheduled(fixedRateString = "${events.heartbeatMs:25000}")
+    public void heartbeat() {
+        channels.values().forEach(channel -> channel.clients.forEach(client -> enqueue(channel, client, HEARTBEAT)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        channels.values().forEach(channel -> channel.clients.forEach(client -> client.emitter.complete()));
+    }
+
+    // heti, ilman transaktion odotusta. Commitin jälkeen ajettavasta koodista (afterCommit), jossa publish
+    // rekisteröisi uuden synkronoinnin jota ei enää kutsuta
+    public void publishNow(Long companyId, String type, Object data) {
+        Channel channel = channels.computeIfAbsent(companyId, id -> new Channel());
+        synchronized (channel) {
+            CompanyEventDTO event = new CompanyEventDTO(sequence.incrementAndGet(), type, data);
+            channel.buffer.addLast(event);
+            if (channel.buffer.size() > bufferSize) {
+                channel.lastDroppedId = channel.buffer.removeFirst().getId();
+            }
+            // jonoon channelin lukossa, jotta jokainen client saa tapahtumat id järjestyksessä
+            channel.clients.forEach(client -> enqueue(channel, client, event));
+        }
+    }
+
+    // täysi jono = client ei pysy perässä, suljetaan. Sulkeminen jätetään purkavalle säikeelle, koska
+    // SseEmitter.complete odottaisi käynnissä olevan lähetyksen loppumista
+    private void enqueue(Channel channel, Client client, Object item) {
+        synchronized (client) {
+            if (client.closed) {
+                return;
+            }
+            if (client.queue.size() >= clientQueueSize) {
+                client.closed = true;
+                client.queue.clear();
+                channel.clients.remove(client);
+                if (!client.draining) {
+                    client.draining = true;
+                    sender.execute(() -> client.emitter.complete());
+                }
+                return;
+            }
+            client.queue.addLast(item);
+        }
+        drainLater(channel, client);
+    }
+
+    private void drainLater(Channel channel, Client client) {
+        synchronized (client) {
+            if (client.draining || client.queue.isEmpty()) {
+                return;
+            }
+            client.draining = true;
+        }
+        sender.execute(() -> drain(channel, client));
+    }
+
+    // yksi purkaja per client kerrallaan, lähetykset järjestyksessä
+    private void drain(Channel channel, Client client) {
+        while (true) {
+            Object item;
+            synchronized (client) {
+                item = client.closed ? null : client.queue.pollFirst();
+                if (item == null && !client.closed) {
+                    client.draining = false;
+                    return;
+                }
+            }
+            if (item == null) {  // suljettu enqueuessa
+                client.emitter.complete();
+                return;
+            }
+            if (!send(client.emitter, item)) {
+                remove(channel, client);  // client katkaissut, servlet sulkee yhteyden
+                return;
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, Object item) {
+        try {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("hb"));
+            } else {
+                CompanyEventDTO event = (CompanyEventDTO) item;
+                emitter.send(SseEmitter.event()
+                    .id(epoch + "-" + event.getId())
+                    .name(event.getType())
+                    .data(event, MediaType.APPLICATION_JSON));
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    // tämän käynnistyksen id:n numero, muuten null
+    private Long parseId(String id) {
+        if (!id.startsWith(epoch + "-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void remove(Channel channel, Client client) {
+        synchronized (client) {
+            client.closed = true;
+            client.queue.clear();
+        }
+        channel.clients.remove(client);
+    }
+
+    private static class Channel {
+        private final ArrayDeque<CompanyEventDTO> buffer = new ArrayDeque<>();
+        private final List<Client> clients = new CopyOnWriteArrayList<>();
+        private long lastDroppedId;  // viimeisin puskurista pudonnut, sitä vanhempi Last-Event-ID -> reset
+    }
+
+    // yksi SSE yhteys ja sen lähettämättömät tapahtumat, kentät clientin lukossa
+    private static class Client {
+        private final SseEmitter emitter;
+        private final ArrayDeque<Object> queue = new ArrayDeque<>();
+        private boolean draining;  // purkaja jonossa tai käynnissä
+        private boolean closed;
+
+        private Client(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.backend.server.events.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// yksi /api/events tapahtuma. id kasvaa koko palvelimella käynnistyksen sisällä. SSE id kentässä se on
+// käynnistyksen tunnisteen kanssa, ja client lähettää viimeisimmän Last-Event-ID headerissa
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompanyEventDTO {
+    private long id;
+    private String type;  // punch-in, punch-out, shift-assigned, shift-deleted
+    private Object data;
+}
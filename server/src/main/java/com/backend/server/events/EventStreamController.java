@@ -0,0 +1,59 @@
+package com.backend.server.events;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.backend.server.security.AuthContext;
+import com.backend.server.security.AuthPrincipal;
+import com.backend.server.security.KioskDeviceService;
+import com.backend.server.utility.Role;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@CrossOrigin
+@RestController
+@RequestMapping("/api/events")
+public class EventStreamController {
+    private final CompanyEventHub companyEventHub;
+    private final KioskDeviceService kioskDeviceService;
+    private final AuthContext authContext;
+
+    // companyn tapahtumat SSE streamina. Tapahtumissa näkyy kuka on paikalla, joten kuten /api/report/onsite:
+    // kiosk avaimella kioskin company, muuten vähintään supervisor.
+    // Palauttaa SseEmitterin suoraan (ResponseEntity<?> ei tunnistu streamiksi), virheet ResponseStatusExceptionina
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = "Authorization", required = false) String authorization,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId){
+        Long companyId;
+        try {
+            if (authorization != null && authorization.startsWith("Kiosk ")) {
+                companyId = kioskDeviceService.authorizeKiosk(authorization);
+            } else {
+                AuthPrincipal user = authContext.getPrincipal();
+                if (user.getRole() == null || user.getRole().ordinal() < Role.SUPERVISOR.ordinal()) {
+                    throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+                }
+                companyId = user.getCompanyId();
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+        }
+        if (companyId == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+        }
+        try {
+            // tuntematon tai edellisen käynnistyksen Last-Event-ID -> reset tapahtuma
+            return companyEventHub.subscribe(companyId, lastEventId);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+    }
+}
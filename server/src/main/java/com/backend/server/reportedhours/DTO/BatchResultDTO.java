@@ -0,0 +1,21 @@
+package com.backend.server.reportedhours.DTO;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// /api/report/batch tulos per lähetetty rivi, index = rivin paikka pyynnön listassa.
+// status: "created", "updated" tai "failed" (message kertoo syyn, vain failed rivit tarvitsee lähettää uudelleen)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDTO {
+    private int index;
+    private LocalDate date;
+    private String status;
+    private String message;
+}
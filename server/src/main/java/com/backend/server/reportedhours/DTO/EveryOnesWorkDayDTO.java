@@ -24,6 +24,10 @@ public class EveryOnesWorkDayDTO {
     private Integer breaksTotal;
     private String description;
     private Boolean isHoliday;
-    
-    
+
+    // WorkDayRepositoryn JPQL projektiota varten, email jätetään pois
+    public EveryOnesWorkDayDTO(Long id, Long userId, String firstName, String lastName, LocalDate date,
+                               LocalTime startTime, LocalTime endTime, Integer breaksTotal, String description, Boolean isHoliday) {
+        this(id, userId, firstName, lastName, null, date, startTime, endTime, breaksTotal, description, isHoliday);
+    }
 }
@@ -0,0 +1,24 @@
+package com.backend.server.reportedhours.DTO;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// /api/report/summary: työntekijän tunnit jaksolta. periodStart = viikon maanantai / kuun 1. päivä, null jos ei ryhmitelty
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoursSummaryDTO {
+    private Long userId;
+    private String firstName;
+    private String lastName;
+    private LocalDate periodStart;
+    private double regularHours;  // tehdyt tunnit tauot vähennettynä, arkipäivät
+    private double holidayHours;  // sama pyhäpäiviltä (isHoliday)
+    private long breakMinutes;
+    private long days;
+}
@@ -0,0 +1,13 @@
+package com.backend.server.reportedhours.DTO;
+
+// WorkDayRepository.summarizeHours natiivikyselyn rivi (interface projektio, aliakset vastaavat gettereitä)
+public interface HoursSummaryRow {
+    Long getUserId();
+    String getFirstName();
+    String getLastName();
+    String getPeriodStart();  // yyyy-MM-dd, null kun ei ryhmitellä
+    Long getRegularMinutes();
+    Long getHolidayMinutes();
+    Long getBreakMinutes();
+    Long getDays();
+}
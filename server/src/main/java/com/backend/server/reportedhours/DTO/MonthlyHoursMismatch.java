@@ -0,0 +1,9 @@
+package com.backend.server.reportedhours.DTO;
+
+// MonthlyHoursRepository.findMismatches rivi: kuukausi jonka rollup ei vastaa reported_hours rivejä
+public interface MonthlyHoursMismatch {
+    Long getUserId();
+    String getMonth();  // yyyy-MM-dd
+    Long getExpectedDays();  // null jos kuukaudelle ei pitäisi olla riviä
+    Long getStoredDays();  // null jos rivi puuttuu
+}
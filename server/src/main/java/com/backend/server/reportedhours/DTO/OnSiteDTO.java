@@ -0,0 +1,20 @@
+package com.backend.server.reportedhours.DTO;
+
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// /api/report/onsite vastaus, paikalla oleva työntekijä
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnSiteDTO {
+    private Long userId;
+    private String firstName;
+    private String lastName;
+    private LocalTime startTime;
+}
@@ -0,0 +1,25 @@
+package com.backend.server.reportedhours.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// PresenceIndexin merkintä: käyttäjällä on tälle päivälle aloitettu, lopettamaton vuoro
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceDTO {
+    private Long workDayId;
+    private Long userId;
+    private Long companyId;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private LocalDate date;
+    private LocalTime startTime;
+}
@@ -0,0 +1,21 @@
+package com.backend.server.reportedhours.DTO;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// kioskin jonosta yksi leimaus, /api/report/punch/sync. Käyttäjä joko userId:llä tai emaililla
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PunchEventDTO {
+    private String eventId;  // kioskin oma tunniste, sama tunniste lähetetään uudelleen yrityksissä
+    private Long userId;
+    private String email;
+    private LocalDateTime timestamp;  // kioskin paikallinen aika leimaushetkellä
+    private String direction;  // "in" tai "out"
+}
@@ -0,0 +1,18 @@
+package com.backend.server.reportedhours.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// /api/report/punch/sync tulos per leimaus samassa järjestyksessä kuin pyynnössä.
+// status: applied, duplicate (käsitelty jo aiemmin) tai failed (message kertoo syyn, ei kannata lähettää uudelleen)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PunchSyncResultDTO {
+    private String eventId;
+    private String status;
+    private String message;
+}
@@ -0,0 +1,18 @@
+package com.backend.server.reportedhours.DTO;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// sivutettu vastaus /api/report/company ja /api/report/others, nextCursor null kun sivuja ei ole enempää
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkDayPageDTO {
+    private List<EveryOnesWorkDayDTO> items;
+    private String nextCursor;
+}
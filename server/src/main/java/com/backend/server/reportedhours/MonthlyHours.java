@@ -0,0 +1,57 @@
+package com.backend.server.reportedhours;
+
+import java.time.LocalDate;
+
+import com.backend.server.users.User;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// reported_hours summat per käyttäjä per kuukausi, palkanlaskenta lukee nämä raakarivien sijaan.
+// Päivitetään aina kun reported_hours muuttuu, ks. MonthlyHoursService. Rivit kirjoitetaan natiivi SQL:llä.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "monthly_hours", indexes = {
+    // upsert (ON CONFLICT) ja summahaut kuukausivälillä
+    @Index(name = "uq_monthly_hours_user_month", columnList = "user_id, month", unique = true)
+})
+public class MonthlyHours {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable=false, referencedColumnName = "id")
+    private User user;
+
+    @Column(nullable=false)  // kuukauden ensimmäinen päivä
+    private LocalDate month;
+
+    // minuutteina, kuten /api/report/summary laskee ne (tauot vähennetty, vain lopetetut päivät)
+    @Column(nullable=false, name = "regular_minutes")
+    private Long regularMinutes;
+
+    @Column(nullable=false, name = "holiday_minutes")
+    private Long holidayMinutes;
+
+    @Column(nullable=false, name = "break_minutes")
+    private Long breakMinutes;
+
+    @Column(nullable=false)
+    private Long days;
+}
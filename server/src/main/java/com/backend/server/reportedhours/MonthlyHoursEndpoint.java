@@ -0,0 +1,31 @@
+package com.backend.server.reportedhours;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+// monthly_hours ylläpito management portissa (ei julkinen):
+// GET /actuator/monthlyhours = tarkistus, POST /actuator/monthlyhours = koko taulun rebuild (backfill)
+@RequiredArgsConstructor
+@Component
+@Endpoint(id = "monthlyhours")
+public class MonthlyHoursEndpoint {
+
+    private final MonthlyHoursService monthlyHoursService;
+
+    @ReadOperation
+    public Map<String, Object> check() {
+        var mismatches = monthlyHoursService.findMismatches();
+        return Map.of("consistent", mismatches.isEmpty(), "mismatches", mismatches);
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        return Map.of("rows", monthlyHoursService.rebuild());
+    }
+}
@@ -0,0 +1,83 @@
+package com.backend.server.reportedhours;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.backend.server.reportedhours.DTO.HoursSummaryRow;
+import com.backend.server.reportedhours.DTO.MonthlyHoursMismatch;
+
+@Repository
+public interface MonthlyHoursRepository extends JpaRepository<MonthlyHours, Long> {
+
+    // kuukausisummat reported_hours riveistä, samat laskukaavat kuin WorkDayRepository.summarizeHours
+    String MONTH_TOTALS = "SELECT wd.user_id AS \"userId\", CAST(date_trunc('month', wd.date) AS date) AS \"month\", "
+            + WorkDayRepository.HOURS_TOTALS
+            + "FROM reported_hours wd " + WorkDayRepository.WORKED_MINUTES;
+    String UPSERT = "INSERT INTO monthly_hours (id, user_id, month, regular_minutes, holiday_minutes, break_minutes, days) "
+            + "SELECT nextval('monthly_hours_seq'), t.\"userId\", t.\"month\", t.\"regularMinutes\", t.\"holidayMinutes\", t.\"breakMinutes\", t.\"days\" ";
+    String ON_CONFLICT = "ON CONFLICT (user_id, month) DO UPDATE SET regular_minutes = EXCLUDED.regular_minutes, "
+            + "holiday_minutes = EXCLUDED.holiday_minutes, break_minutes = EXCLUDED.break_minutes, days = EXCLUDED.days";
+
+    // yhden käyttäjän yksi kuukausi uudelleen (max ~31 riviä indeksiltä). Poistetaan jos lopetettuja päiviä ei enää ole
+    @Modifying
+    @Query(value = "DELETE FROM monthly_hours WHERE user_id = :userId AND month = :month", nativeQuery = true)
+    int deleteMonth(@Param("userId") Long userId, @Param("month") LocalDate month);
+
+    @Modifying
+    @Query(value = UPSERT + "FROM (" + MONTH_TOTALS
+            + "WHERE wd.user_id = :userId AND wd.date BETWEEN :month AND :monthEnd AND wd.end_time IS NOT NULL "
+            + "GROUP BY wd.user_id, \"month\") t " + ON_CONFLICT, nativeQuery = true)
+    int upsertMonth(@Param("userId") Long userId, @Param("month") LocalDate month, @Param("monthEnd") LocalDate monthEnd);
+
+    // companyn kaikki käyttäjät yhdeltä kuukaudelta (retention poistaa rivejä kaikilta kerralla)
+    @Modifying
+    @Query(value = "DELETE FROM monthly_hours WHERE month <= :month AND user_id IN (SELECT id FROM users WHERE company_id = :companyId)", nativeQuery = true)
+    int deleteCompanyMonthsUpTo(@Param("companyId") Long companyId, @Param("month") LocalDate month);
+
+    @Modifying
+    @Query(value = UPSERT + "FROM (" + MONTH_TOTALS
+            + "WHERE wd.user_id IN (SELECT id FROM users WHERE company_id = :companyId) "
+            + "AND wd.date BETWEEN :month AND :monthEnd AND wd.end_time IS NOT NULL "
+            + "GROUP BY wd.user_id, \"month\") t " + ON_CONFLICT, nativeQuery = true)
+    int upsertCompanyMonth(@Param("companyId") Long companyId, @Param("month") LocalDate month, @Param("monthEnd") LocalDate monthEnd);
+
+    // backfill: koko taulu uudelleen reported_hours riveistä
+    @Modifying
+    @Query(value = "DELETE FROM monthly_hours", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = UPSERT + "FROM (" + MONTH_TOTALS + "WHERE wd.end_time IS NOT NULL GROUP BY wd.user_id, \"month\") t "
+            + ON_CONFLICT, nativeQuery = true)
+    int insertAllMonths();
+
+    // tarkistus: kuukaudet joiden summat eroavat reported_hours riveistä (tai puuttuvat / ylimääräiset rivit)
+    @Query(value = "SELECT COALESCE(t.\"userId\", mh.user_id) AS \"userId\", to_char(COALESCE(t.\"month\", mh.month), 'YYYY-MM-DD') AS \"month\", "
+            + "t.\"days\" AS \"expectedDays\", mh.days AS \"storedDays\" "
+            + "FROM (" + MONTH_TOTALS + "WHERE wd.end_time IS NOT NULL GROUP BY wd.user_id, \"month\") t "
+            + "FULL OUTER JOIN monthly_hours mh ON mh.user_id = t.\"userId\" AND mh.month = t.\"month\" "
+            + "WHERE t.\"userId\" IS NULL OR mh.id IS NULL OR mh.days <> t.\"days\" "
+            + "OR mh.regular_minutes <> t.\"regularMinutes\" OR mh.holiday_minutes <> t.\"holidayMinutes\" "
+            + "OR mh.break_minutes <> t.\"breakMinutes\"", nativeQuery = true)
+    List<MonthlyHoursMismatch> findMismatches();
+
+    // /api/report/summary kokonaisilta kuukausilta: O(käyttäjät × kuukaudet) riviä. groupBy "month" tai muu = koko väli
+    @Query(value = "SELECT u.id AS \"userId\", u.first_name AS \"firstName\", u.last_name AS \"lastName\", "
+            + "CASE WHEN :groupBy = 'month' THEN to_char(mh.month, 'YYYY-MM-DD') END AS \"periodStart\", "
+            + "CAST(SUM(mh.regular_minutes) AS bigint) AS \"regularMinutes\", CAST(SUM(mh.holiday_minutes) AS bigint) AS \"holidayMinutes\", "
+            + "CAST(SUM(mh.break_minutes) AS bigint) AS \"breakMinutes\", CAST(SUM(mh.days) AS bigint) AS \"days\" "
+            + "FROM monthly_hours mh JOIN users u ON u.id = mh.user_id "
+            + "WHERE u.company_id = :companyId AND mh.month BETWEEN :fromMonth AND :toMonth "
+            + "AND (CAST(:userId AS bigint) IS NULL OR u.id = :userId) "
+            + "GROUP BY u.id, u.first_name, u.last_name, \"periodStart\" "
+            + "ORDER BY u.last_name, u.first_name, \"periodStart\"", nativeQuery = true)
+    List<HoursSummaryRow> summarizeMonths(@Param("companyId") Long companyId, @Param("userId") Long userId,
+                                          @Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth,
+                                          @Param("groupBy") String groupBy);
+}
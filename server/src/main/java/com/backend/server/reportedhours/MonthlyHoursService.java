@@ -0,0 +1,67 @@
+package com.backend.server.reportedhours;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.backend.server.reportedhours.DTO.HoursSummaryRow;
+import com.backend.server.reportedhours.DTO.MonthlyHoursMismatch;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+// monthly_hours rollupin ylläpito. WorkDayService kutsuu refreshiä jokaisen reported_hours muutoksen jälkeen samassa
+// transaktiossa: muuttuneen päivän kuukausi lasketaan uudelleen sen käyttäjän riveistä (indeksihaku, max ~31 riviä),
+// joten rollup ei voi ajautua eri tilaan vaikka sama päivä muuttuisi monta kertaa.
+// rebuild() backfillaa koko taulun, findMismatches() vertaa rollupia raakariveihin (ks. MonthlyHoursEndpoint)
+@Service
+@RequiredArgsConstructor
+public class MonthlyHoursService {
+    private final MonthlyHoursRepository monthlyHoursRepository;
+
+    @Transactional
+    public void refresh(Long userId, LocalDate date) {
+        LocalDate month = date.withDayOfMonth(1);
+        monthlyHoursRepository.deleteMonth(userId, month);
+        monthlyHoursRepository.upsertMonth(userId, month, month.plusMonths(1).minusDays(1));
+    }
+
+    @Transactional  // batch: kukin kuukausi kerran
+    public void refresh(Long userId, Collection<LocalDate> dates) {
+        dates.stream().map(date -> date.withDayOfMonth(1)).distinct().forEach(month -> refresh(userId, month));
+    }
+
+    // retention poisti companyn rivit ennen cutOff päivää: sitä vanhemmat kuukaudet pois, cutOffin kuukausi uudelleen
+    @Transactional
+    public void retentionApplied(Long companyId, LocalDate cutOff) {
+        LocalDate month = cutOff.withDayOfMonth(1);
+        monthlyHoursRepository.deleteCompanyMonthsUpTo(companyId, month);
+        monthlyHoursRepository.upsertCompanyMonth(companyId, month, month.plusMonths(1).minusDays(1));
+    }
+
+    // koko taulu uudelleen, esim. käyttöönotossa tai jos tarkistus löytää eroja
+    @Transactional
+    public int rebuild() {
+        monthlyHoursRepository.deleteAllRows();
+        return monthlyHoursRepository.insertAllMonths();
+    }
+
+    public List<MonthlyHoursMismatch> findMismatches() {
+        return monthlyHoursRepository.findMismatches();
+    }
+
+    // korjaa tarkistuksen löytämät kuukaudet yksitellen, palauttaa korjattujen määrän
+    @Transactional
+    public int repair() {
+        List<MonthlyHoursMismatch> mismatches = monthlyHoursRepository.findMismatches();
+        mismatches.forEach(row -> refresh(row.getUserId(), LocalDate.parse(row.getMonth())));
+        return mismatches.size();
+    }
+
+    // summat kokonaisilta kuukausilta fromMonth..toMonth (kuukausien ensimmäiset päivät)
+    public List<HoursSummaryRow> summarize(Long companyId, Long userId, LocalDate fromMonth, LocalDate toMonth, String groupBy) {
+        return monthlyHoursRepository.summarizeMonths(companyId, userId, fromMonth, toMonth, groupBy);
+    }
+}
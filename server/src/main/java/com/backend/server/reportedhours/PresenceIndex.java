@@ -0,0 +1,138 @@
+package com.backend.server.reportedhours;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.backend.server.events.CompanyEventHub;
+import com.backend.server.reportedhours.DTO.OnSiteDTO;
+import com.backend.server.reportedhours.DTO.PresenceDTO;
+import com.backend.server.users.User;
+
+import lombok.RequiredArgsConstructor;
+
+// Muistissa pidettävä "kuka on töissä" hakemisto per company. WorkDayService päivittää leimauksissa,
+// käynnistyksessä ja vuorokauden vaihtuessa ladataan tämän päivän lopettamattomat vuorot kannasta.
+// Lukupolku (/punchclock, /onsite) ei tee tietokantahakuja. Toimii yhden instanssin ajossa (heroku dyno),
+// usealla instanssilla toisen instanssin leimaukset näkyvät vasta seuraavassa latauksessa.
+// Muutokset lähetetään myös companyn /api/events clienteille (CompanyEventHub).
+// Leimausten muutokset tehdään vasta commitin jälkeen, joten rollback ei jätä hakemistoon kannasta puuttuvaa vuoroa.
+// Muutokset ja lataus ovat saman lukon takana, lukijat näkevät aina kokonaisen hakemiston ilman lukkoa.
+@Component
+@RequiredArgsConstructor
+public class PresenceIndex {
+    private final WorkDayRepository workDayRepository;
+    private final CompanyEventHub companyEventHub;
+
+    private volatile Snapshot snapshot = new Snapshot();
+
+    // uusi hakemisto rakennetaan erikseen ja vaihdetaan kerralla, lukijat eivät näe tyhjää välitilaa.
+    // Lukon takana, jotta latauksen aikana commitoitu leimaus ei jää vanhaan hakemistoon
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 0 * * ?")  // keskiyöllä eilisen lopettamattomat pois
+    public synchronized void rebuild() {
+        Snapshot loaded = new Snapshot();
+        workDayRepository.findOpenWorkDays(LocalDate.now()).forEach(loaded::put);
+        snapshot = loaded;
+    }
+
+    public void punchedIn(User user, WorkDay workDay) {
+        // merkintä nyt, entityjä ei lueta commitin jälkeen
+        PresenceDTO entry = new PresenceDTO(workDay.getId(), user.getId(), user.getCompany().getId(), user.getEmail(),
+                user.getFirstName(), user.getLastName(), workDay.getDate(), workDay.getStartTime());
+        afterCommit(() -> applyPunchIn(entry));
+    }
+
+    // vuoro lopetettu, päivitetty tai poistettu
+    public void punchedOut(Long userId) {
+        afterCommit(() -> removeAndPublish(userId));
+    }
+
+    // sama kuin punchedOut, kun tiedossa on vain poistetun vuoron id
+    public void workDayRemoved(Long workDayId) {
+        afterCommit(() -> snapshot.byEmail.values().stream()
+                .filter(entry -> entry.getWorkDayId().equals(workDayId))
+                .findFirst()
+                .ifPresent(entry -> removeAndPublish(entry.getUserId())));
+    }
+
+    // null jos käyttäjä ei ole tänään töissä
+    public PresenceDTO findByEmail(String email) {
+        PresenceDTO entry = snapshot.byEmail.get(email);
+        return entry != null && entry.getDate().equals(LocalDate.now()) ? entry : null;
+    }
+
+    public List<OnSiteDTO> onSite(Long companyId) {
+        LocalDate today = LocalDate.now();
+        return snapshot.byCompany.getOrDefault(companyId, Map.of()).values().stream()
+                .filter(entry -> entry.getDate().equals(today))
+                .sorted(Comparator.comparing(PresenceDTO::getStartTime))
+                .map(this::toOnSite)
+                .toList();
+    }
+
+    // transaktion sisällä commitin jälkeen, muuten heti
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    // tapahtumat publishNow:lla, ajetaan jo commitin jälkeen
+    private synchronized void applyPunchIn(PresenceDTO entry) {
+        snapshot.remove(entry.getUserId());  // vanha merkintä pois, esim. vaihtunut email
+        snapshot.put(entry);
+        companyEventHub.publishNow(entry.getCompanyId(), "punch-in", toOnSite(entry));
+    }
+
+    private OnSiteDTO toOnSite(PresenceDTO entry) {
+        return new OnSiteDTO(entry.getUserId(), entry.getFirstName(), entry.getLastName(), entry.getStartTime());
+    }
+
+    // companyn clienteille (/api/events) tieto että käyttäjä ei ole enää paikalla
+    private synchronized void removeAndPublish(Long userId) {
+        PresenceDTO removed = snapshot.remove(userId);
+        if (removed != null) {
+            companyEventHub.publishNow(removed.getCompanyId(), "punch-out", Map.of("userId", userId));
+        }
+    }
+
+    // yksi hakemiston versio, muutokset PresenceIndexin lukossa
+    private static class Snapshot {
+        private final Map<Long, Map<Long, PresenceDTO>> byCompany = new ConcurrentHashMap<>();  // company id -> user id -> merkintä
+        private final Map<String, PresenceDTO> byEmail = new ConcurrentHashMap<>();
+
+        private void put(PresenceDTO entry) {
+            byCompany.computeIfAbsent(entry.getCompanyId(), id -> new ConcurrentHashMap<>()).put(entry.getUserId(), entry);
+            byEmail.put(entry.getEmail(), entry);
+        }
+
+        private PresenceDTO remove(Long userId) {
+            PresenceDTO result = null;
+            for (Map<Long, PresenceDTO> company : byCompany.values()) {
+                PresenceDTO removed = company.remove(userId);
+                if (removed != null) {
+                    byEmail.remove(removed.getEmail(), removed);
+                    result = removed;
+                }
+            }
+            return result;
+        }
+    }
+}
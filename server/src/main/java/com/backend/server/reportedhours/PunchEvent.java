@@ -0,0 +1,55 @@
+package com.backend.server.reportedhours;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Kioskin offline jonosta synkattu leimaus (/api/report/punch/sync). Tallennetaan vain tunnisteen takia:
+// sama eventId samalta companyltä ohitetaan, joten kioski voi lähettää jonon uudelleen turvallisesti.
+// Vanhat rivit poistetaan, ks. DataBaseCleaner
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "punch_events", indexes = {
+    @Index(name = "uq_punch_events_company_event", columnList = "company_id, event_id", unique = true),
+    @Index(name = "idx_punch_events_received_at", columnList = "received_at")
+})
+public class PunchEvent {
+
+    @Id
+    @GeneratedValue  // sekvenssi, jotta saveAll lähtee JDBC batcheina
+    private Long id;
+
+    @Column(name = "company_id", nullable=false)
+    private Long companyId;
+
+    @Column(name = "event_id", nullable=false, length = 64)
+    private String eventId;
+
+    @Column(name = "user_id", nullable=true)  // null jos käyttäjää ei löytynyt
+    private Long userId;
+
+    @Column(nullable=false, length = 3)
+    private String direction;
+
+    @Column(name = "punched_at", nullable=true)
+    private LocalDateTime punchedAt;
+
+    @Column(nullable=false, length = 16)  // applied / failed
+    private String status;
+
+    @Column(name = "received_at", nullable=false)
+    private Instant receivedAt;
+}
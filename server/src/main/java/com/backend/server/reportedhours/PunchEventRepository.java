@@ -0,0 +1,23 @@
+package com.backend.server.reportedhours;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PunchEventRepository extends JpaRepository<PunchEvent, Long> {
+
+    // jo käsitellyt tunnisteet yhdellä haulla, "companyId:eventId" muodossa
+    @Query("SELECT CONCAT(e.companyId, ':', e.eventId) FROM PunchEvent e WHERE e.eventId IN :eventIds")
+    List<String> findProcessedKeys(@Param("eventIds") Collection<String> eventIds);
+
+    @Modifying
+    @Query("DELETE FROM PunchEvent e WHERE e.receivedAt < :cutOff")
+    int deleteReceivedBefore(@Param("cutOff") Instant cutOff);
+}
@@ -0,0 +1,172 @@
+package com.backend.server.reportedhours;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.backend.server.reportedhours.DTO.PunchEventDTO;
+import com.backend.server.reportedhours.DTO.PunchSyncResultDTO;
+import com.backend.server.users.User;
+import com.backend.server.users.UserRepository;
+import com.backend.server.utility.ChangeVersions;
+import com.backend.server.utility.HolidayChecker;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+// Kioskin offline jonon synkkaus (/api/report/punch/sync). Kaikki leimaukset yhdessä transaktiossa:
+// käyttäjät ja jo käsitellyt tunnisteet haetaan kerran, leimaukset ajetaan käyttäjittäin aikajärjestyksessä
+// samoilla upserteilla kuin punchIn / punchOut, mutta leimauksen omalla päivällä ja kellonajalla.
+@Service
+@RequiredArgsConstructor
+public class PunchSyncService {
+    private static final String IN = "in";
+    private static final String OUT = "out";
+
+    private final WorkDayRepository workDayRepository;
+    private final PunchEventRepository punchEventRepository;
+    private final UserRepository userRepository;
+    private final HolidayChecker holidayChecker;
+    private final PresenceIndex presenceIndex;
+    private final MonthlyHoursService monthlyHoursService;
+    private final ChangeVersions changeVersions;
+
+    @Value("${kiosk.syncMaxEvents}")
+    private int syncMaxEvents;
+
+    @Value("${kiosk.maxClockSkewSeconds}")
+    private long maxClockSkewSeconds;
+
+    @Value("${kiosk.maxEventAgeHours}")
+    private long maxEventAgeHours;
+
+    // kioskCompanyId: laiteavaimen company, pakollinen. Vain sen companyn työntekijöiden leimaukset hyväksytään
+    @Transactional
+    public List<PunchSyncResultDTO> sync(Long kioskCompanyId, List<PunchEventDTO> events) {
+        if (kioskCompanyId == null) {
+            throw new IllegalArgumentException("Kiosk key required");
+        }
+        if (events == null || events.isEmpty()) {
+            throw new IllegalArgumentException("No events");
+        }
+        if (events.size() > syncMaxEvents) {
+            throw new IllegalArgumentException("Too many events, max " + syncMaxEvents);
+        }
+
+        // käyttäjät kahdella haulla (id:t ja emailit)
+        Map<Long, User> usersById = new HashMap<>();
+        userRepository.findAllById(events.stream().map(e -> e == null ? null : e.getUserId()).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .forEach(user -> usersById.put(user.getId(), user));
+        Map<String, User> usersByEmail = userRepository.findAllByEmailIn(
+                events.stream().map(e -> e == null ? null : e.getEmail()).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(User::getEmail, Function.identity(), (a, b) -> a));
+        Set<String> processed = new HashSet<>(punchEventRepository.findProcessedKeys(
+                events.stream().map(e -> e == null ? null : e.getEventId()).filter(Objects::nonNull).collect(Collectors.toSet())));
+
+        LocalDateTime latestAllowed = LocalDateTime.now().plusSeconds(maxClockSkewSeconds);
+        LocalDateTime earliestAllowed = LocalDateTime.now().minusHours(maxEventAgeHours);
+        List<PunchSyncResultDTO> results = new ArrayList<>();
+        Map<Long, List<Integer>> byUser = new LinkedHashMap<>();  // käyttäjä -> kelvollisten leimausten indeksit
+        Map<Integer, User> eventUsers = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            PunchEventDTO event = events.get(i);
+            User user = event == null ? null
+                    : event.getUserId() != null ? usersById.get(event.getUserId()) : usersByEmail.get(event.getEmail());
+            String error = null;
+            if (event == null || event.getEventId() == null || event.getEventId().isBlank() || event.getEventId().length() > 64) {
+                error = "Event id missing or longer than 64 characters";
+            } else if (!IN.equals(event.getDirection()) && !OUT.equals(event.getDirection())) {
+                error = "Direction must be in or out";
+            } else if (event.getTimestamp() == null || event.getTimestamp().isAfter(latestAllowed)) {
+                error = "Timestamp missing or in the future";
+            } else if (event.getTimestamp().isBefore(earliestAllowed)) {
+                error = "Timestamp older than " + maxEventAgeHours + " hours";
+            } else if (user == null) {
+                error = "User not found";
+            } else if (!kioskCompanyId.equals(user.getCompany().getId())) {
+                error = "Unauthorized";
+            }
+
+            String eventId = event != null ? event.getEventId() : null;
+            if (error == null && !processed.add(kioskCompanyId + ":" + eventId)) {  // aiemmin tai samassa pyynnössä
+                results.add(new PunchSyncResultDTO(eventId, "duplicate", null));
+                continue;
+            }
+            results.add(new PunchSyncResultDTO(eventId, error == null ? "applied" : "failed", error));
+            if (error == null) {
+                byUser.computeIfAbsent(user.getId(), id -> new ArrayList<>()).add(i);
+                eventUsers.put(i, user);
+            }
+        }
+
+        List<PunchEvent> toSave = new ArrayList<>();
+        Instant receivedAt = Instant.now();
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, Boolean> holidays = new HashMap<>();
+        for (List<Integer> indexes : byUser.values()) {
+            indexes.sort(Comparator.comparing(index -> events.get(index).getTimestamp()));  // vakaa, saman hetken järjestys säilyy
+            User user = eventUsers.get(indexes.get(0));
+            Set<LocalDate> changedDates = new TreeSet<>();
+            WorkDay last = null;
+            String lastDirection = null;
+            for (int index : indexes) {
+                PunchEventDTO event = events.get(index);
+                LocalDate date = event.getTimestamp().toLocalDate();
+                Optional<WorkDay> saved;
+                String failure = "No started workday";
+                if (IN.equals(event.getDirection())) {
+                    // lopetettua päivää ei avata uudelleen
+                    saved = workDayRepository.upsertOpenPunchIn(user.getId(), date, event.getTimestamp().toLocalTime(),
+                            holidays.computeIfAbsent(date, holidayChecker::isHoliday));
+                    failure = "Workday already finished";
+                } else {
+                    saved = workDayRepository.updatePunchOut(user.getId(), date, event.getTimestamp().toLocalTime());
+                    if (saved.isEmpty()) {  // yövuoro: aloitettu edellisenä päivänä
+                        saved = workDayRepository.updateOpenPunchOut(user.getId(), date.minusDays(1), event.getTimestamp().toLocalTime());
+                    }
+                }
+                if (saved.isPresent()) {
+                    last = saved.get();
+                    lastDirection = event.getDirection();
+                    changedDates.add(last.getDate());
+                } else {
+                    PunchSyncResultDTO result = results.get(index);
+                    result.setStatus("failed");
+                    result.setMessage(failure);
+                }
+                toSave.add(new PunchEvent(null, kioskCompanyId,
+                        event.getEventId(), user.getId(), event.getDirection(), event.getTimestamp(),
+                        results.get(index).getStatus(), receivedAt));
+            }
+            // läsnäolo vain jos viimeisin leimaus koskee tämän päivän (tai yön yli jatkuvaa eilistä) vuoroa
+            if (last != null && !last.getDate().isBefore(today.minusDays(1))) {
+                if (IN.equals(lastDirection) && last.getDate().equals(today)) {
+                    presenceIndex.punchedIn(user, last);
+                } else if (OUT.equals(lastDirection)) {
+                    presenceIndex.punchedOut(user.getId());
+                }
+            }
+            monthlyHoursService.refresh(user.getId(), changedDates);
+            changeVersions.bump(ChangeVersions.USER_REPORTS, user.getId());
+        }
+        // tarkistuksissa hylätyt (ei käyttäjää, virheellinen rivi) eivät tallennu, kioski ei lähetä failed rivejä uudelleen
+        punchEventRepository.saveAll(toSave);
+        return results;
+    }
+}
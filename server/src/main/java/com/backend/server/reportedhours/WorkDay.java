@@ -7,8 +7,10 @@ import com.backend.server.users.User;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -22,14 +24,22 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "reported_hours")
+@Table(name = "reported_hours", indexes = {
+    // keyset sivutus (date, id) järjestyksessä, koko company ja yksittäisen käyttäjän suodatus
+    @Index(name = "idx_reported_hours_date_id", columnList = "date, id"),
+    @Index(name = "idx_reported_hours_user_date_id", columnList = "user_id, date, id"),
+    // yksi rivi per käyttäjä per päivä, upsert (ON CONFLICT) perustuu tähän. ks. WorkDayUniqueDayMigration
+    @Index(name = "uq_reported_hours_user_date", columnList = "user_id, date", unique = true),
+    // delta sync (/api/sync/reports), muutokset change_seq järjestyksessä
+    @Index(name = "idx_reported_hours_user_change_seq", columnList = "user_id, change_seq")
+})
 public class WorkDay {
 
     @Id
     @GeneratedValue
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)  // listaukset hakevat nimet projektioilla, ks. WorkDayRepository
     @JoinColumn(name = "user_id", nullable=false, referencedColumnName = "id")
     private User user;
 
@@ -52,5 +62,9 @@ public class WorkDay {
     @Column(nullable=true)   // koko rajataan DTO:ssa
     private String description;
 
+    // muutosjärjestys, kanta asettaa triggerillä jokaisessa insertissä ja updatessa (myös natiivit upsertit).
+    // ks. ChangeSequenceMigration
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
 
 }
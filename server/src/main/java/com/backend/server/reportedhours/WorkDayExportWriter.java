@@ -0,0 +1,128 @@
+package com.backend.server.reportedhours;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import com.backend.server.reportedhours.DTO.EveryOnesWorkDayDTO;
+
+// Raportoitujen tuntien export (CSV / XLSX) suoraan responseen rivi kerrallaan, muisti ei kasva rivimäärän mukana.
+// XLSX: SXSSF pitää muistissa vain ROW_WINDOW riviä, vanhemmat kirjoitetaan temp tiedostoon.
+// Kutsujan transaktio pitää kannan kursorin auki (ks. WorkDayService.exportCompanyWorkDays)
+@Component
+public class WorkDayExportWriter {
+    private static final int ROW_WINDOW = 100;
+    private static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final String[] HEADERS = {
+        "date", "userId", "firstName", "lastName", "startTime", "endTime", "breakMinutes", "workedHours", "isHoliday", "description"
+    };
+
+    public void writeCsv(Stream<EveryOnesWorkDayDTO> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(String.join(",", HEADERS));
+        writer.write("\r\n");
+        Iterator<EveryOnesWorkDayDTO> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            EveryOnesWorkDayDTO row = iterator.next();
+            Double worked = workedHours(row);
+            writer.write(row.getDate() + "," + row.getUserId() + ","
+                    + csv(row.getFirstName()) + "," + csv(row.getLastName()) + ","
+                    + row.getStartTime() + "," + (row.getEndTime() != null ? row.getEndTime() : "") + ","
+                    + (row.getBreaksTotal() != null ? row.getBreaksTotal() : 0) + ","
+                    + (worked != null ? worked : "") + ","
+                    + Boolean.TRUE.equals(row.getIsHoliday()) + "," + csv(row.getDescription()));
+            writer.write("\r\n");
+        }
+        writer.flush();  // ei close, servlet sulkee oman streaminsa
+    }
+
+    public void writeXlsx(Stream<EveryOnesWorkDayDTO> rows, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(false);  // pakkaus hidasti ~30% (WorkDayExportBenchmark), temp tiedosto poistuu heti
+        try {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+            SXSSFSheet sheet = newSheet(workbook);
+            int rowIndex = 1;
+            Iterator<EveryOnesWorkDayDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                EveryOnesWorkDayDTO row = iterator.next();
+                if (rowIndex == MAX_SHEET_ROWS) {  // excelin rivimaksimi täynnä, jatketaan uudelle välilehdelle
+                    sheet = newSheet(workbook);
+                    rowIndex = 1;
+                }
+                Row excelRow = sheet.createRow(rowIndex++);
+                excelRow.createCell(0).setCellValue(row.getDate());
+                excelRow.getCell(0).setCellStyle(dateStyle);
+                excelRow.createCell(1).setCellValue(row.getUserId());
+                excelRow.createCell(2).setCellValue(row.getFirstName());
+                excelRow.createCell(3).setCellValue(row.getLastName());
+                excelRow.createCell(4).setCellValue(String.valueOf(row.getStartTime()));
+                if (row.getEndTime() != null) {
+                    excelRow.createCell(5).setCellValue(row.getEndTime().toString());
+                }
+                excelRow.createCell(6).setCellValue(row.getBreaksTotal() != null ? row.getBreaksTotal() : 0);
+                Double worked = workedHours(row);
+                if (worked != null) {
+                    excelRow.createCell(7).setCellValue(worked);
+                }
+                excelRow.createCell(8).setCellValue(Boolean.TRUE.equals(row.getIsHoliday()));
+                excelRow.createCell(9).setCellValue(row.getDescription());
+            }
+            workbook.write(out);
+        } finally {
+            workbook.close();  // poistaa myös temp tiedostot
+        }
+    }
+
+    private SXSSFSheet newSheet(SXSSFWorkbook workbook) {
+        SXSSFSheet sheet = workbook.createSheet("Hours " + (workbook.getNumberOfSheets() + 1));
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            header.createCell(i).setCellValue(HEADERS[i]);
+        }
+        return sheet;
+    }
+
+    // tehdyt tunnit kuten /api/report/summary: yli keskiyön menevä vuoro +24h, tauot vähennetty. null jos päivä kesken
+    static Double workedHours(EveryOnesWorkDayDTO row) {
+        if (row.getStartTime() == null || row.getEndTime() == null) {
+            return null;
+        }
+        long minutes = Duration.between(row.getStartTime(), row.getEndTime()).toMinutes();
+        if (minutes < 0) {
+            minutes += 24 * 60;
+        }
+        minutes -= row.getBreaksTotal() != null ? row.getBreaksTotal() : 0;
+        return Math.round(minutes / 60.0 * 100) / 100.0;
+    }
+
+    // RFC 4180 lainausmerkit tarvittaessa, ja kaavoiksi tulkittavat arvot (=, +, -, @) tekstiksi heittomerkillä
+    private static String csv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
@@ -1,41 +1,181 @@
 package com.backend.server.reportedhours;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.backend.server.reportedhours.DTO.EveryOnesWorkDayDTO;
+import com.backend.server.reportedhours.DTO.HoursSummaryRow;
+import com.backend.server.reportedhours.DTO.PresenceDTO;
+import com.backend.server.reportedhours.DTO.WorkDayDTO;
+import com.backend.server.sync.DTO.WorkDayChangeDTO;
+
+import jakarta.persistence.QueryHint;
+
 
 
 
 @Repository
 public interface WorkDayRepository extends JpaRepository<WorkDay, Long> {
-    
+
+    // listausten projektiot: vain DTO:n sarakkeet yhdellä joinilla, ei User/Company entityjä per rivi
+    String EVERYONES_WORKDAY_DTO = "SELECT new com.backend.server.reportedhours.DTO.EveryOnesWorkDayDTO("
+            + "wd.id, u.id, u.firstName, u.lastName, wd.date, wd.startTime, wd.endTime, "
+            + "COALESCE(wd.breaksTotal, 0), COALESCE(wd.description, ''), wd.isHoliday) "
+            + "FROM WorkDay wd JOIN wd.user u ";
+    // delta sync: muuttuneet päivät muutosnumeron mukaan
+    String WORKDAY_CHANGE_DTO = "SELECT new com.backend.server.sync.DTO.WorkDayChangeDTO("
+            + "wd.changeSeq, wd.id, u.id, u.firstName, u.lastName, wd.date, wd.startTime, wd.endTime, "
+            + "COALESCE(wd.breaksTotal, 0), COALESCE(wd.description, ''), wd.isHoliday) "
+            + "FROM WorkDay wd JOIN wd.user u ";
+    String WORKDAY_DTO = "SELECT new com.backend.server.reportedhours.DTO.WorkDayDTO("
+            + "wd.id, wd.date, wd.startTime, wd.endTime, COALESCE(wd.breaksTotal, 0), wd.isHoliday, COALESCE(wd.description, '')) "
+            + "FROM WorkDay wd ";
+
+    // tuntisummien natiivi SQL (summarizeHours ja MonthlyHoursRepository), reported_hours alias wd.
+    // työaika minuutteina = lopetus - aloitus (yli keskiyön menevä vuoro +24h) - tauot
+    String WORKED_MINUTES = "CROSS JOIN LATERAL (SELECT EXTRACT(EPOCH FROM (wd.end_time - wd.start_time "
+            + "+ CASE WHEN wd.end_time < wd.start_time THEN INTERVAL '24 hours' ELSE INTERVAL '0' END)) / 60 "
+            + "- COALESCE(wd.breaks_total, 0) AS worked) m ";
+    String HOURS_TOTALS = "CAST(COALESCE(SUM(CASE WHEN wd.is_holiday THEN 0 ELSE m.worked END), 0) AS bigint) AS \"regularMinutes\", "
+            + "CAST(COALESCE(SUM(CASE WHEN wd.is_holiday THEN m.worked ELSE 0 END), 0) AS bigint) AS \"holidayMinutes\", "
+            + "CAST(COALESCE(SUM(wd.breaks_total), 0) AS bigint) AS \"breakMinutes\", "
+            + "COUNT(*) AS \"days\" ";
+
     List<WorkDay> findAllByUserId(Long userId);
 
     @Query(value = "SELECT * FROM reported_hours WHERE user_id = :userId ORDER BY date DESC LIMIT :limit", nativeQuery = true)
     List<WorkDay> findLastShiftsForUser(@Param("userId") Long userId, @Param("limit") int limit);
 
+    // käyttäjän viimeiset vuorot suoraan DTO:ksi, määrä Pageablesta
+    @Query(WORKDAY_DTO + "WHERE wd.user.id = :userId ORDER BY wd.date DESC")
+    List<WorkDayDTO> findLastWorkDayDTOsForUser(@Param("userId") Long userId, Pageable pageable);
+
 
     @Query("SELECT wd FROM WorkDay wd JOIN wd.user u WHERE u.company.id = :companyId")
     List<WorkDay> findAllByCompanyId(Long companyId);
 
+    // päivän aloitetut ja lopettamattomat vuorot PresenceIndexin lataukseen
+    @Query("SELECT new com.backend.server.reportedhours.DTO.PresenceDTO(wd.id, u.id, u.company.id, u.email, u.firstName, u.lastName, wd.date, wd.startTime) "
+            + "FROM WorkDay wd JOIN wd.user u WHERE wd.date = :date AND wd.endTime IS NULL ORDER BY wd.id ASC")
+    List<PresenceDTO> findOpenWorkDays(@Param("date") LocalDate date);
+
     @Query(value = "SELECT * FROM reported_hours WHERE user_id = :userId AND date = :date ORDER BY date DESC LIMIT 1", nativeQuery = true)
     Optional<WorkDay> findByUserAndDate(@Param("userId") Long userId, @Param("date") LocalDate date);
 
+    // upsertit: yksi kysely per leimaus/päivitys, uniikki (user_id, date) indeksi estää rinnakkaisten leimausten duplikaatit.
+    // id samasta sekvenssistä kuin hibernaten (pooled, 50 kerrallaan), nextval ei osu hibernaten varaamiin id:ihin.
+    // CAST, jotta null parametreille on tyyppi
+
+    // leimaus sisään (/punchin ja kioskin synkkaus): uusi päivä, tai aloitetun päivän aloitusaika säilyy (tuplaleimaus).
+    // Lopetettua päivää ei avata: yksi rivi per päivä, joten uudelleen avattu päivä laskisi kahden jakson välisen
+    // tauon työajaksi. Tyhjä jos päivä on jo lopetettu
+    @Query(value = "INSERT INTO reported_hours (id, user_id, date, start_time, end_time, breaks_total, is_holiday, description) "
+            + "VALUES (nextval('reported_hours_seq'), :userId, :date, CAST(:startTime AS time), NULL, NULL, :isHoliday, NULL) "
+            + "ON CONFLICT (user_id, date) DO UPDATE SET end_time = NULL WHERE reported_hours.end_time IS NULL "
+            + "RETURNING *", nativeQuery = true)
+    Optional<WorkDay> upsertOpenPunchIn(@Param("userId") Long userId, @Param("date") LocalDate date,
+                                        @Param("startTime") LocalTime startTime, @Param("isHoliday") Boolean isHoliday);
+
+    // leimaus ulos, tyhjä jos päivää ei ole aloitettu
+    @Query(value = "UPDATE reported_hours SET end_time = CAST(:endTime AS time) WHERE user_id = :userId AND date = :date "
+            + "RETURNING *", nativeQuery = true)
+    Optional<WorkDay> updatePunchOut(@Param("userId") Long userId, @Param("date") LocalDate date,
+                                     @Param("endTime") LocalTime endTime);
+
+    // sama, mutta vain avoimelle päivälle (synkattu yövuoron lopetus edellisen päivän riville)
+    @Query(value = "UPDATE reported_hours SET end_time = CAST(:endTime AS time) WHERE user_id = :userId AND date = :date "
+            + "AND end_time IS NULL RETURNING *", nativeQuery = true)
+    Optional<WorkDay> updateOpenPunchOut(@Param("userId") Long userId, @Param("date") LocalDate date,
+                                         @Param("endTime") LocalTime endTime);
+
+    // koko päivän tiedot (updateShift, addShift), korvaa olemassa olevan päivän kentät
+    @Query(value = "INSERT INTO reported_hours (id, user_id, date, start_time, end_time, breaks_total, is_holiday, description) "
+            + "VALUES (nextval('reported_hours_seq'), :userId, :date, CAST(:startTime AS time), CAST(:endTime AS time), "
+            + "CAST(:breaksTotal AS integer), :isHoliday, CAST(:description AS varchar)) "
+            + "ON CONFLICT (user_id, date) DO UPDATE SET start_time = EXCLUDED.start_time, end_time = EXCLUDED.end_time, "
+            + "breaks_total = EXCLUDED.breaks_total, is_holiday = EXCLUDED.is_holiday, description = EXCLUDED.description "
+            + "RETURNING *", nativeQuery = true)
+    WorkDay upsertDay(@Param("userId") Long userId, @Param("date") LocalDate date,
+                      @Param("startTime") LocalTime startTime, @Param("endTime") LocalTime endTime,
+                      @Param("breaksTotal") Integer breaksTotal, @Param("isHoliday") Boolean isHoliday,
+                      @Param("description") String description);
+
+    // käyttäjän olemassa olevat päivät annetuille päiville, batch päivitystä varten yhdellä kyselyllä
+    @Query("SELECT wd FROM WorkDay wd WHERE wd.user.id = :userId AND wd.date IN :dates")
+    List<WorkDay> findAllByUserIdAndDateIn(@Param("userId") Long userId, @Param("dates") Collection<LocalDate> dates);
+
+    // palkanlaskennan summat per käyttäjä (ja jakso) yhdellä GROUP BY kyselyllä, vain lopetetut päivät.
+    // groupBy: "week", "month" tai muu = koko väli. (user_id, date) indeksi rajaa päivämäärävälin
+    @Query(value = "SELECT u.id AS \"userId\", u.first_name AS \"firstName\", u.last_name AS \"lastName\", "
+            + "CASE WHEN :groupBy IN ('week', 'month') THEN to_char(date_trunc(:groupBy, wd.date), 'YYYY-MM-DD') END AS \"periodStart\", "
+            + HOURS_TOTALS
+            + "FROM reported_hours wd JOIN users u ON u.id = wd.user_id " + WORKED_MINUTES
+            + "WHERE u.company_id = :companyId AND wd.date BETWEEN :from AND :to AND wd.end_time IS NOT NULL "
+            + "AND (CAST(:userId AS bigint) IS NULL OR u.id = :userId) "
+            + "GROUP BY u.id, u.first_name, u.last_name, \"periodStart\" "
+            + "ORDER BY u.last_name, u.first_name, \"periodStart\"", nativeQuery = true)
+    List<HoursSummaryRow> summarizeHours(@Param("companyId") Long companyId, @Param("userId") Long userId,
+                                         @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                         @Param("groupBy") String groupBy);
+
     // poista vanhentuneet workdayt cutoff päivän jälkeen, companyn perusteella, nativequeryllä
+    @Modifying
     @Query(value = "DELETE FROM reported_hours WHERE date < :date AND user_id IN (SELECT id FROM users WHERE company_id = :companyId)", nativeQuery = true)
     void deleteOldReports(@Param("date") LocalDate date, @Param("companyId") Long companyId);
 
     // hae kaikki companyn käyttäjien raportoidut vuorot
-    @Query("SELECT wd FROM WorkDay wd JOIN wd.user u WHERE u.company.id = :companyId")
-    List<WorkDay> findAllByUserIn(@Param("companyId") Long companyId);
+    @Query(EVERYONES_WORKDAY_DTO + "WHERE u.company.id = :companyId")
+    List<EveryOnesWorkDayDTO> findAllByUserIn(@Param("companyId") Long companyId);
+
+    // companyn (tai yhden käyttäjän, userId ei null) päivät joiden muutosnumero on cursorin jälkeen, määrä Pageablesta
+    @Query(WORKDAY_CHANGE_DTO + "WHERE u.company.id = :companyId AND (:userId IS NULL OR u.id = :userId)"
+            + " AND wd.changeSeq > :since ORDER BY wd.changeSeq")
+    List<WorkDayChangeDTO> findChangesSince(@Param("companyId") Long companyId, @Param("userId") Long userId,
+                                            @Param("since") long since, Pageable pageable);
+
+    // sama streamattuna ?stream=true listaukselle, kursori haetaan 500 rivi kerrallaan. vaatii avoimen transaktion
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(EVERYONES_WORKDAY_DTO + "WHERE u.company.id = :companyId")
+    Stream<EveryOnesWorkDayDTO> streamAllByUserIn(@Param("companyId") Long companyId);
+
+    // export (CSV/XLSX) päivämäärävälillä, streamattuna kuten yllä
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(EVERYONES_WORKDAY_DTO + "WHERE u.company.id = :companyId AND wd.date BETWEEN :from AND :to"
+            + " AND (:userId IS NULL OR u.id = :userId)"
+            + " ORDER BY wd.date, u.lastName, u.firstName")
+    Stream<EveryOnesWorkDayDTO> streamCompanyRange(@Param("companyId") Long companyId, @Param("userId") Long userId,
+                                                   @Param("from") LocalDate from, @Param("to") LocalDate to);
 
     // hae kaikki companyn käyttäjien raportoidut vuorot, paitsi käyttäjän omat
-    @Query("SELECT wd FROM WorkDay wd JOIN wd.user u WHERE u.company.id = :companyId AND u.id != :userId")
-    List<WorkDay> findAllByUserExcludingUser(@Param("userId") Long userId, @Param("companyId") Long companyId);
+    @Query(EVERYONES_WORKDAY_DTO + "WHERE u.company.id = :companyId AND u.id != :userId")
+    List<EveryOnesWorkDayDTO> findAllByUserExcludingUser(@Param("userId") Long userId, @Param("companyId") Long companyId);
+
+    // sivutettu (keyset) haku companyn raportoiduista vuoroista, uusimmat ensin.
+    // cursor = edellisen sivun viimeisen rivin (date, id), sivun koko Pageablesta. excludedUserId ja userId saa olla null
+    @Query(EVERYONES_WORKDAY_DTO + "WHERE u.company.id = :companyId"
+            + " AND (:excludedUserId IS NULL OR u.id <> :excludedUserId)"
+            + " AND (:userId IS NULL OR u.id = :userId)"
+            + " AND wd.date >= :from AND wd.date <= :to"
+            + " AND (wd.date < :cursorDate OR (wd.date = :cursorDate AND wd.id < :cursorId))"
+            + " ORDER BY wd.date DESC, wd.id DESC")
+    List<EveryOnesWorkDayDTO> findCompanyPage(@Param("companyId") Long companyId,
+                                  @Param("excludedUserId") Long excludedUserId,
+                                  @Param("userId") Long userId,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to,
+                                  @Param("cursorDate") LocalDate cursorDate,
+                                  @Param("cursorId") Long cursorId,
+                                  Pageable pageable);
 }
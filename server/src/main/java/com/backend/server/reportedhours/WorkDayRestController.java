@@ -6,9 +6,10 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -19,16 +20,27 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.backend.server.reportedhours.DTO.EveryOnesWorkDayDTO;
+import com.backend.server.reportedhours.DTO.PresenceDTO;
 import com.backend.server.reportedhours.DTO.PunchClockResponseDTO;
+import com.backend.server.reportedhours.DTO.PunchEventDTO;
 import com.backend.server.reportedhours.DTO.PunchPostDTO;
 import com.backend.server.reportedhours.DTO.WorkDayDTO;
 import com.backend.server.reportedhours.DTO.WorkDayResponseDTO;
+import com.backend.server.security.AuthContext;
+import com.backend.server.security.AuthPrincipal;
+import com.backend.server.security.KioskDeviceService;
+import com.backend.server.security.RequireRole;
 import com.backend.server.security.SecurityService;
 import com.backend.server.users.User;
 import com.backend.server.users.UserRepository;
+import com.backend.server.utility.ChangeVersions;
+import com.backend.server.utility.Role;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -41,6 +53,11 @@ public class WorkDayRestController {
     private final WorkDayService workDayService;
     private final SecurityService securityService;
     private final UserRepository userRepository;
+    private final KioskDeviceService kioskDeviceService;
+    private final PresenceIndex presenceIndex;
+    private final PunchSyncService punchSyncService;
+    private final AuthContext authContext;
+    private final ChangeVersions changeVersions;
 
   /*   @PostMapping("/add")
     public ResponseEntity<?> addShift(@Valid @RequestBody WorkDayDTO workDayDTO,
@@ -69,12 +86,12 @@ public class WorkDayRestController {
 
     // päivittää vuoron päivämäärän perusteella, jos päivämäärää ei ole olemassa, luo uuden vuoron.
     // tätä voisi katsoa jos käyttäisi ensisijaisesti frontista.
+    @RequireRole
     @PutMapping("/update")
-    public ResponseEntity<?> updateShift(@Valid @RequestBody WorkDayDTO workDayDTO,
-                                         @RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> updateShift(@Valid @RequestBody WorkDayDTO workDayDTO) {
         try {
             // Käyttäjäntarkistus, heittää IllegalArgumentException jos ei toimi
-            User user = securityService.getUserFromToken(token);
+            User user = authContext.getUser();
 
             WorkDayResponseDTO workDay = workDayService.updateShift(user, workDayDTO.getDate(), 
                                                          workDayDTO.getStartTime(), 
@@ -90,43 +107,111 @@ public class WorkDayRestController {
         }
     }
 
+    // palkanlaskennan tuntisummat per työntekijä jaksolta, lasketaan kannassa. Oletuksena kuluva kuukausi
+    @RequireRole(Role.SUPERVISOR)
+    @GetMapping("/summary")
+    public ResponseEntity<?> getHoursSummary(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                             @RequestParam(required = false) String groupBy,
+                                             @RequestParam(required = false) Long userId) {
+        AuthPrincipal user;
+        try {
+            user = authContext.getPrincipal();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+        try {
+            LocalDate start = from != null ? from : LocalDate.now().withDayOfMonth(1);
+            LocalDate end = to != null ? to : start.plusMonths(1).minusDays(1);
+            return ResponseEntity.ok(workDayService.getHoursSummary(user.getCompanyId(), userId, start, end, groupBy));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // raportoidut tunnit taulukkona palkanlaskentaan, format csv (oletus) tai xlsx. Rivit kirjoitetaan responseen
+    // sitä mukaa kun ne luetaan kannasta. Oletuksena kuluva kuukausi, kuten /summary
+    @RequireRole(Role.SUPERVISOR)
+    @GetMapping("/export")
+    public ResponseEntity<?> exportHours(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(defaultValue = "csv") String format,
+                                         @RequestParam(required = false) Long userId) {
+        AuthPrincipal user;
+        try {
+            user = authContext.getPrincipal();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+        if (!format.equals("csv") && !format.equals("xlsx")) {
+            return ResponseEntity.badRequest().body("format must be csv or xlsx");
+        }
+        LocalDate start = from != null ? from : LocalDate.now().withDayOfMonth(1);
+        LocalDate end = to != null ? to : start.plusMonths(1).minusDays(1);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body("from must be before to");
+        }
+        Long companyId = user.getCompanyId();
+        StreamingResponseBody body = out -> workDayService.exportCompanyWorkDays(companyId, userId, start, end, format, out);
+        MediaType contentType = format.equals("xlsx")
+                ? MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                : MediaType.parseMediaType("text/csv;charset=UTF-8");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header("Content-Disposition", "attachment; filename=\"hours_" + start + "_" + end + "." + format + "\"")
+                .body(body);
+    }
+
+    // monta päivää kerralla, esim. viikon kirjaukset tai supervisorin korjaukset työntekijälle (?userId=)
+    // vastaus: tulos per rivi (created / updated / failed), vain failed rivit tarvitsee lähettää uudelleen
+    @RequireRole
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchUpdate(@RequestBody List<WorkDayDTO> workDayDTOs,
+                                         @RequestParam(required = false) Long userId) {
+        User target;
+        try {
+            User user = authContext.getUser();
+            target = user;
+            if (userId != null && !userId.equals(user.getId())) {
+                // toisen käyttäjän kirjaukset vain supervisor ja saman companyn työntekijälle
+                Optional<User> worker = userRepository.findById(userId);
+                if (!securityService.isSuperVisor(user.getRole()) || worker.isEmpty()
+                        || !worker.get().getCompany().getId().equals(user.getCompany().getId())) {
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+                }
+                target = worker.get();
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+        try {
+            return ResponseEntity.ok(workDayService.batchUpdate(target, workDayDTOs));
+        } catch (Exception e) {
+            // tyhjä tai liian iso pyyntö, tai tallennus epäonnistui (koko batch peruttu)
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     // viimeiset 31 vuoroa haku
+    @RequireRole
     @GetMapping("/personal")
-    public ResponseEntity<?> getUserShifts(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getUserShifts(WebRequest request) {
     try {
-        // Tarkistus
-        User user = securityService.getUserFromToken(token);
+        // Tarkistus, välimuistista jos mahdollista
+        AuthPrincipal user = authContext.getPrincipal();
+
+        // ETag käyttäjän raporttien versiosta (+ companyn siivous), 304 ennen kantahakua
+        String etag = changeVersions.etag("rp", user.getUserId(),
+                changeVersions.version(ChangeVersions.USER_REPORTS, user.getUserId()),
+                changeVersions.version(ChangeVersions.COMPANY_REPORTS, user.getCompanyId()));
+        if (request.checkNotModified(etag)) {
+            return ChangeVersions.notModified(etag);
+        }
 
         // Kutsu overloaded funkiota joka palauttaa viimeiset 31 entryä
-        List<WorkDay> userShifts = workDayService.getUserShifts(user);
-
-        List<WorkDayDTO> userShiftsDTO = userShifts.stream()   // DTO muunnos jotta välttää lazy parsing error
-                        .map(workday -> {
-                        WorkDayDTO dto = new WorkDayDTO();
-                        dto.setId(workday.getId());
-                        dto.setDate(workday.getDate());
-                        dto.setStartTime(workday.getStartTime());
-                        dto.setEndTime(workday.getEndTime());
-                        // null check
-                        if(workday.getBreaksTotal() != null){
-                            dto.setBreaksTotal(workday.getBreaksTotal());
-                        }
-                        else {
-                            dto.setBreaksTotal(0);
-                        }
-                        // null check
-                        if(workday.getDescription() != null){
-                            dto.setDescription(workday.getDescription());
-                        }
-                        else {
-                            dto.setDescription("");
-                        }
-                        dto.setIsHoliday(workday.getIsHoliday());
-                        return dto;
-    })
-                        .collect(Collectors.toList());
-
-        return ResponseEntity.ok(userShiftsDTO);
+        List<WorkDayDTO> userShiftsDTO = workDayService.getUserWorkDayDTOs(user.getUserId(), 31);
+
+        return ChangeVersions.ok(etag).body(userShiftsDTO);
     } catch (IllegalArgumentException e) {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
     } catch (Exception e) {
@@ -135,42 +220,15 @@ public class WorkDayRestController {
 }
 
     // viimeiset custom määrä vuoroja haku, määrä parametrinä
+    @RequireRole
     @GetMapping("/personal/{amount}")
-    public ResponseEntity<?> getUserShifts(@RequestHeader("Authorization") String token, 
-                                            @Valid @PathVariable int amount) {
+    public ResponseEntity<?> getUserShifts(@Valid @PathVariable int amount) {
         try {
-            // Tarkistus
-            User user = securityService.getUserFromToken(token);
+            // Tarkistus, välimuistista jos mahdollista
+            AuthPrincipal user = authContext.getPrincipal();
 
             // Kutsu overloaded funktiota joka palauttaa custom määrän entryjä
-            List<WorkDay> userShifts = workDayService.getUserShifts(user, amount);
-
-            List<WorkDayDTO> userShiftsDTO = userShifts.stream()   // DTO välttääkseen lazy parsing error
-                            .map(workday -> {
-                            WorkDayDTO dto = new WorkDayDTO();
-                            dto.setId(workday.getId());
-                            dto.setDate(workday.getDate());
-                            dto.setStartTime(workday.getStartTime());
-                            dto.setEndTime(workday.getEndTime());
-                            // null check breaks
-                            if(workday.getBreaksTotal() != null){
-                                dto.setBreaksTotal(workday.getBreaksTotal());
-                            }
-                            else {
-                                dto.setBreaksTotal(0);
-                            }
-                            // null check description
-                            if(workday.getDescription() != null){
-                                dto.setDescription(workday.getDescription());
-                            }
-                            else {
-                                dto.setDescription("");
-                            }
-                            dto.setIsHoliday(workday.getIsHoliday());
-                            return dto;
-        })
-                            .collect(Collectors.toList());
-
+            List<WorkDayDTO> userShiftsDTO = workDayService.getUserWorkDayDTOs(user.getUserId(), amount);
 
             return ResponseEntity.ok(userShiftsDTO);
         } catch (IllegalArgumentException e) {
@@ -182,39 +240,15 @@ public class WorkDayRestController {
     }
 
     // viimeisin vuoro, ehkä turha koska voi käyttää /personal/1
+    @RequireRole
     @GetMapping("/personal/latest")
-    public ResponseEntity<?> getLatestShift(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getLatestShift() {
         try {
-            // Tarkistus
-            User user = securityService.getUserFromToken(token);
+            // Tarkistus, välimuistista jos mahdollista
+            AuthPrincipal user = authContext.getPrincipal();
 
             // Kutsu funktiota joka palauttaa viimeisimmän entryn
-            List<WorkDay> userShift = workDayService.getUserShifts(user, 1);
-
-            List<WorkDayDTO> userShiftDTO = userShift.stream()   // DTO välttääkseen lazy parsing error
-                            .map(workday -> {
-                            WorkDayDTO dto = new WorkDayDTO();
-                            dto.setId(workday.getId());
-                            dto.setDate(workday.getDate());
-                            dto.setStartTime(workday.getStartTime());
-                            dto.setEndTime(workday.getEndTime());
-                            // null check breaks and description
-                            if(workday.getBreaksTotal() != null){
-                                dto.setBreaksTotal(workday.getBreaksTotal());
-                            }
-                            else {
-                                dto.setBreaksTotal(0);
-                            }
-                            if(workday.getDescription() != null){
-                                dto.setDescription(workday.getDescription());
-                            }
-                            else {
-                                dto.setDescription("");
-                            }
-                            dto.setIsHoliday(workday.getIsHoliday());
-                            return dto;
-        })
-                            .collect(Collectors.toList());
+            List<WorkDayDTO> userShiftDTO = workDayService.getUserWorkDayDTOs(user.getUserId(), 1);
             // muunna lista yhdeksi vuoroksi
             return ResponseEntity.ok(userShiftDTO.get(0));
         } catch (IllegalArgumentException e) {
@@ -224,12 +258,12 @@ public class WorkDayRestController {
         }
     }
 
+    @RequireRole
     @DeleteMapping("/delete/{shiftID}")
-    public ResponseEntity<?> deleteShift(@RequestHeader("Authorization") String token, 
-                                          @Valid @PathVariable Long shiftID) {
+    public ResponseEntity<?> deleteShift(@Valid @PathVariable Long shiftID) {
         try {
             // Tarkistus
-            User user = securityService.getUserFromToken(token);
+            User user = authContext.getUser();
 
             // etsi vuoro
             WorkDay tobedeleted = workDayService.findByID(shiftID);
@@ -249,48 +283,43 @@ public class WorkDayRestController {
     }
 
     @GetMapping("/punchclock/{email}")
-    public ResponseEntity<?> getAtWork(@PathVariable String email){
+    public ResponseEntity<?> getAtWork(@PathVariable String email,
+                                       @RequestHeader(value = "Authorization", required = false) String kioskKey){
+        // kioskin laiteavain (Authorization: Kiosk <avain>), rajaa leimaukset kioskin companyyn
+        Long kioskCompanyId;
+        try {
+            kioskCompanyId = kioskDeviceService.authorizeKiosk(kioskKey);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
         try {
-            // etsi käyttäjä sähköpostilla
+            // töissä olevat löytyvät muistista (PresenceIndex), ei tietokantahakua
+            PresenceDTO present = presenceIndex.findByEmail(email);
+            PunchClockResponseDTO DTO = new PunchClockResponseDTO();
+            DTO.setDate(LocalDate.now());
+            if (present != null) {
+                if (kioskCompanyId != null && !kioskCompanyId.equals(present.getCompanyId())) {
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+                }
+                DTO.setFirstName(present.getFirstName());
+                DTO.setLastName(present.getLastName());
+                DTO.setStartTime(present.getStartTime());
+                DTO.setIsAtWork(true);
+                return ResponseEntity.ok(DTO);
+            }
+
+            // ei töissä: nimet käyttäjältä
             Optional<User> user = userRepository.findByEmail(email);
             if (user.isEmpty()) {
                 return ResponseEntity.badRequest().body("User not found");
             }
-
-              // TODO: etsi käyttäjän SHIFT, joka on tälle päivälle
-
-            // katso serverin päivämäärä, ja katso onko vuoroa tällä päivämäärällä
-            LocalDate today = LocalDate.now();
-            // hae viimeisin työvuoro
-            List<WorkDay> userShifts = workDayService.getUserShifts(user.get(), 1);
-
-            LocalDate shiftDate;
-            LocalTime shiftStartTime;
-            LocalTime shiftEndTime;
-            
-
-            if (userShifts.isEmpty()) {
-                shiftDate = LocalDate.of(2000, 1, 1);  // jos vuoroa ei löydy, palauta joku vanha päivä
-            } else {
-                shiftDate = userShifts.get(0).getDate();
+            if (kioskCompanyId != null && !kioskCompanyId.equals(user.get().getCompany().getId())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
             }
-
-            // jos päivämäärä on sama kuin tänään, palauta true
-
-            // valmistele DTO
-            PunchClockResponseDTO DTO = new PunchClockResponseDTO();
+            // TODO: lisää description päivän shiftistä
             DTO.setFirstName(user.get().getFirstName());
             DTO.setLastName(user.get().getLastName());
-            DTO.setDate(today);
-            // TODO: lisää startTime ja endTime kun shift valmis
-            // TODO: lisää description päivän shiftistä
-            
-
-            if(shiftDate.equals(today) && userShifts.get(0).getEndTime() == null) {
-                DTO.setIsAtWork(true);
-            } else {
-                DTO.setIsAtWork(false);
-            }   
+            DTO.setIsAtWork(false);
             return ResponseEntity.ok(DTO); 
         }
         catch (Exception e) {
@@ -298,14 +327,46 @@ public class WorkDayRestController {
         }
     }
 
+    // paikalla olevat työntekijät, kioskin näyttö pollaa tätä. Kiosk avaimella kioskin company, muuten vähintään supervisor
+    @GetMapping("/onsite")
+    public ResponseEntity<?> getOnSite(@RequestHeader(value = "Authorization", required = false) String authorization){
+        try {
+            Long companyId;
+            if (authorization != null && authorization.startsWith("Kiosk ")) {
+                companyId = kioskDeviceService.authorizeKiosk(authorization);
+            } else {
+                AuthPrincipal user = authContext.getPrincipal();
+                if (user.getRole() == null || user.getRole().ordinal() < Role.SUPERVISOR.ordinal()) {
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+                }
+                companyId = user.getCompanyId();
+            }
+            // suoraan muistista
+            return ResponseEntity.ok(presenceIndex.onSite(companyId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+    }
+
     @PostMapping("/punchin")  // muokattu käyttämään email myös requestbodyssä
-    public ResponseEntity<?> punchIn(@RequestBody PunchPostDTO punchPostDTO){
+    public ResponseEntity<?> punchIn(@RequestBody PunchPostDTO punchPostDTO,
+                                      @RequestHeader(value = "Authorization", required = false) String kioskKey){
+        // kioskin laiteavain, ei BCryptiä eikä tietokantahakua
+        Long kioskCompanyId;
+        try {
+            kioskCompanyId = kioskDeviceService.authorizeKiosk(kioskKey);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
         try {
             // etsi käyttäjä
             Optional<User> user = userRepository.findByEmail(punchPostDTO.getEmail());
             if (user.isEmpty()) {
                 return ResponseEntity.badRequest().body("User not found");
             }
+            if (kioskCompanyId != null && !kioskCompanyId.equals(user.get().getCompany().getId())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+            }
 
           
 
@@ -316,19 +377,52 @@ public class WorkDayRestController {
             DTO.setStartTime(punchPostDTO.getTime());
             return ResponseEntity.ok(DTO.getStartTime());
         }
+        catch (IllegalStateException e) {  // päivä on jo lopetettu
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // kioskin offline jono kerralla: leimaukset omilla aikaleimoillaan, tunnisteella deduplikoituna, yhdessä transaktiossa.
+    // laiteavain pakollinen aina, leimaukset vain avaimen companyn työntekijöille
+    @PostMapping("/punch/sync")
+    public ResponseEntity<?> syncPunches(@RequestBody List<PunchEventDTO> events,
+                                         @RequestHeader(value = "Authorization", required = false) String kioskKey){
+        Long kioskCompanyId;
+        try {
+            kioskCompanyId = kioskDeviceService.requireKiosk(kioskKey);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+        try {
+            return ResponseEntity.ok(punchSyncService.sync(kioskCompanyId, events));
+        }
         catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @PostMapping("/punchout") // muokattu käyttämään email myös requestbodyssä
-    public ResponseEntity<?> punchOut(@RequestBody PunchPostDTO punchPostDTO){
+    public ResponseEntity<?> punchOut(@RequestBody PunchPostDTO punchPostDTO,
+                                      @RequestHeader(value = "Authorization", required = false) String kioskKey){
+        // kioskin laiteavain, ei BCryptiä eikä tietokantahakua
+        Long kioskCompanyId;
+        try {
+            kioskCompanyId = kioskDeviceService.authorizeKiosk(kioskKey);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
         try {
             // etsi käyttäjä
             Optional<User> user = userRepository.findByEmail(punchPostDTO.getEmail());
             if (user.isEmpty()) {
                 return ResponseEntity.badRequest().body("User not found");
             }
+            if (kioskCompanyId != null && !kioskCompanyId.equals(user.get().getCompany().getId())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+            }
 
             User confirmedUser = user.get();
             // päätä päivän vuoro ja päivitä siihen lopetusajaksi annettu aika
@@ -343,48 +437,32 @@ public class WorkDayRestController {
         }
     }
 
+    @RequireRole(Role.SUPERVISOR)
     @GetMapping("/company") // palauttaa kaikki yrityksen työntekijöiden vuorot, jos rooli riittää
-    public ResponseEntity<?> everyOnesHours(@RequestHeader ("Authorization") String token){
+    public ResponseEntity<?> everyOnesHours(@RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                            @RequestParam(required = false) Long userId,
+                                            @RequestParam(defaultValue = "false") boolean stream){
         try {
             // tarkista käyttäjä, palauttaa illegalargumentexceptionin jos ei toimi
-            User user = securityService.getUserFromToken(token);
-            //tarkista rooli (vähintään supervisor)
-            if(!securityService.isSuperVisor(user.getRole())){
-                return ResponseEntity.status(401).body("Unauthorized");
+            AuthPrincipal user = authContext.getPrincipal();
+            // stream=true: koko lista kirjoitetaan responseen sitä mukaa kun rivit luetaan kannasta
+            if (stream) {
+                Long companyId = user.getCompanyId();
+                StreamingResponseBody body = out -> workDayService.writeCompanyWorkDays(companyId, out);
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+            }
+            // sivutettu haku jos limit annettu, ilman sitä vanha koko lista
+            if (limit != null) {
+                return ResponseEntity.ok(workDayService.getCompanyWorkDayPage(user.getCompanyId(), null, userId, from, to, cursor, limit));
             }
+            //tarkista rooli (vähintään supervisor)
             // hae käyttäjän yritys
-            Long companyID = user.getCompany().getId();
+            Long companyID = user.getCompanyId();
             // hae kaikki yrityksen vuorot 
-            List<WorkDay> companyShifts = workDayService.getCompanyWorkDays(companyID);
-
-            List<EveryOnesWorkDayDTO> companyShiftsDTO = companyShifts.stream()   // DTO välttääkseen lazy parsing error
-                            .map(workday -> {
-                            EveryOnesWorkDayDTO dto = new EveryOnesWorkDayDTO();
-                            dto.setId(workday.getId());
-                            dto.setUserId(workday.getUser().getId());
-                            dto.setFirstName(workday.getUser().getFirstName());
-                            dto.setLastName(workday.getUser().getLastName());
-                            dto.setDate(workday.getDate());
-                            dto.setStartTime(workday.getStartTime());
-                            dto.setEndTime(workday.getEndTime());
-                            // null check breaks 
-                            if(workday.getBreaksTotal() != null){
-                                dto.setBreaksTotal(workday.getBreaksTotal());
-                            }
-                            else {
-                                dto.setBreaksTotal(0);
-                            }
-                            // null check description
-                            if(workday.getDescription() != null){
-                                dto.setDescription(workday.getDescription());
-                            }
-                            else {
-                                dto.setDescription("");
-                            }
-                            dto.setIsHoliday(workday.getIsHoliday());
-                            return dto;
-        })
-                            .collect(Collectors.toList());
+            List<EveryOnesWorkDayDTO> companyShiftsDTO = workDayService.getCompanyWorkDays(companyID);
 
             return ResponseEntity.ok(companyShiftsDTO);
         }
@@ -397,47 +475,22 @@ public class WorkDayRestController {
 
     }
 
+    @RequireRole(Role.SUPERVISOR)
     @GetMapping("/others") // palauttaa kaikki companyn vuorot, paitsi omat
-    public ResponseEntity<?> othersHours(@RequestHeader ("Authorization") String token){
+    public ResponseEntity<?> othersHours(@RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(required = false) Long userId){
         try {
             // käyttäjä ja rooli
-            User user = securityService.getUserFromToken(token);
-            if(!securityService.isSuperVisor(user.getRole())){
-                return ResponseEntity.status(401).body("Unauthorized");
+            AuthPrincipal user = authContext.getPrincipal();
+            // sivutettu haku jos limit annettu, ilman sitä vanha koko lista
+            if (limit != null) {
+                return ResponseEntity.ok(workDayService.getCompanyWorkDayPage(user.getCompanyId(), user.getUserId(), userId, from, to, cursor, limit));
             }
          
-            List<WorkDay> companyShifts = workDayService.getCompanyWorkDaysExcludingUser(user);
-        
-            
-
-            List<EveryOnesWorkDayDTO> othersShiftsDTO = companyShifts.stream()   // DTO välttääkseen lazy parsing error
-                            .map(workday -> {
-                            EveryOnesWorkDayDTO dto = new EveryOnesWorkDayDTO();
-                            dto.setId(workday.getId());
-                            dto.setFirstName(workday.getUser().getFirstName());
-                            dto.setLastName(workday.getUser().getLastName());
-                            dto.setDate(workday.getDate());
-                            dto.setStartTime(workday.getStartTime());
-                            dto.setEndTime(workday.getEndTime());
-                            // null check breaks
-                            if(workday.getBreaksTotal() != null){
-                                dto.setBreaksTotal(workday.getBreaksTotal());
-                            }
-                            else {
-                                dto.setBreaksTotal(0);
-                            }
-                            // null check description
-                            if(workday.getDescription() != null){
-                                dto.setDescription(workday.getDescription());
-                            }
-                            else {
-                                dto.setDescription("");
-                            }
-                            dto.setIsHoliday(workday.getIsHoliday());
-                            return dto;
-        }
-                            )
-                            .collect(Collectors.toList());
+            List<EveryOnesWorkDayDTO> othersShiftsDTO = workDayService.getCompanyWorkDaysExcludingUser(user.getUserId(), user.getCompanyId());
 
             return ResponseEntity.ok(othersShiftsDTO);
         }
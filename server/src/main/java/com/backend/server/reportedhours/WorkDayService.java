@@ -1,13 +1,26 @@
 package com.backend.server.reportedhours;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import com.backend.server.companies.Company;
+import com.backend.server.reportedhours.DTO.BatchResultDTO;
+import com.backend.server.reportedhours.DTO.EveryOnesWorkDayDTO;
+import com.backend.server.reportedhours.DTO.HoursSummaryDTO;
+import com.backend.server.reportedhours.DTO.HoursSummaryRow;
+import com.backend.server.reportedhours.DTO.WorkDayDTO;
+import com.backend.server.reportedhours.DTO.WorkDayPageDTO;
 import com.backend.server.reportedhours.DTO.WorkDayResponseDTO;
 import com.backend.server.security.SecurityService;
 import com.backend.server.users.User;
@@ -15,7 +28,9 @@ import com.backend.server.users.User;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import com.backend.server.utility.ChangeVersions;
 import com.backend.server.utility.HolidayChecker;
+import com.backend.server.utility.JsonArrayWriter;
 
 @Service
 @RequiredArgsConstructor
@@ -23,7 +38,21 @@ public class WorkDayService {
     private final WorkDayRepository workDayRepository;
     private final SecurityService securityService;
     private final HolidayChecker holidayChecker;
+    private final JsonArrayWriter jsonArrayWriter;
+    private final PresenceIndex presenceIndex;
+    private final MonthlyHoursService monthlyHoursService;
+    private final ChangeVersions changeVersions;
+    private final WorkDayExportWriter workDayExportWriter;
 
+    // sivutuksen rajat kun from/to/cursor puuttuu, mahtuvat postgresin date tyyppiin
+    private static final LocalDate PAGE_MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate PAGE_MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    @Value("${reports.pageMaxSize}")
+    private int pageMaxSize;
+
+    @Value("${reports.batchMaxSize}")
+    private int batchMaxSize;
     
 
     public WorkDay saveWorkDay(WorkDay workDay) {
@@ -43,12 +72,69 @@ public class WorkDayService {
         return workDayRepository.findAllByUserId(id);
     }
 
-    public List<WorkDay> getCompanyWorkDays(Long companyID) {
+    public List<EveryOnesWorkDayDTO> getCompanyWorkDays(Long companyID) {
         return workDayRepository.findAllByUserIn(companyID);
     }
 
-    public List<WorkDay> getCompanyWorkDaysExcludingUser(User user) {
-        return workDayRepository.findAllByUserExcludingUser(user.getId(), user.getCompany().getId());
+    // kirjoittaa samat rivit suoraan responseen, transaktio pitää kursorin auki kirjoituksen ajan
+    @Transactional
+    public void writeCompanyWorkDays(Long companyID, OutputStream out) throws IOException {
+        try (Stream<EveryOnesWorkDayDTO> rows = workDayRepository.streamAllByUserIn(companyID)) {
+            jsonArrayWriter.write(rows, out);
+        }
+    }
+
+    // raportoidut tunnit taulukkona (format "csv" tai "xlsx") suoraan responseen, transaktio pitää kursorin auki
+    @Transactional
+    public void exportCompanyWorkDays(Long companyId, Long userId, LocalDate from, LocalDate to,
+                                      String format, OutputStream out) throws IOException {
+        try (Stream<EveryOnesWorkDayDTO> rows = workDayRepository.streamCompanyRange(companyId, userId, from, to)) {
+            if ("xlsx".equals(format)) {
+                workDayExportWriter.writeXlsx(rows, out);
+            } else {
+                workDayExportWriter.writeCsv(rows, out);
+            }
+        }
+    }
+
+    public List<EveryOnesWorkDayDTO> getCompanyWorkDaysExcludingUser(User user) {
+        return getCompanyWorkDaysExcludingUser(user.getId(), user.getCompany().getId());
+    }
+
+    public List<EveryOnesWorkDayDTO> getCompanyWorkDaysExcludingUser(Long userId, Long companyId) {
+        return workDayRepository.findAllByUserExcludingUser(userId, companyId);
+    }
+
+    // yksi sivu companyn raportoituja vuoroja (date, id) cursorilla, uusimmat ensin.
+    // excludedUserId: jätä käyttäjän omat pois (/others), userId: vain yhden työntekijän vuorot
+    public WorkDayPageDTO getCompanyWorkDayPage(Long companyId, Long excludedUserId, Long userId,
+                                                LocalDate from, LocalDate to, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, pageMaxSize));
+
+        LocalDate cursorDate = PAGE_MAX_DATE;
+        Long cursorId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            // muoto "yyyy-MM-dd_id", virheellinen cursor -> DateTimeParseException / NumberFormatException (400)
+            String[] parts = cursor.split("_", 2);
+            if (parts.length != 2) {
+                throw new NumberFormatException("Invalid cursor: " + cursor);
+            }
+            cursorDate = LocalDate.parse(parts[0]);
+            cursorId = Long.parseLong(parts[1]);
+        }
+
+        // haetaan yksi ylimääräinen rivi, jotta tiedetään onko seuraavaa sivua
+        List<EveryOnesWorkDayDTO> rows = workDayRepository.findCompanyPage(companyId, excludedUserId, userId,
+                from != null ? from : PAGE_MIN_DATE, to != null ? to : PAGE_MAX_DATE,
+                cursorDate, cursorId, PageRequest.of(0, pageSize + 1));
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            EveryOnesWorkDayDTO last = rows.get(pageSize - 1);
+            nextCursor = last.getDate() + "_" + last.getId();
+        }
+        return new WorkDayPageDTO(rows, nextCursor);
     }
 
     @Transactional
@@ -57,53 +143,34 @@ public class WorkDayService {
         // käyttäjä tokenista
         User user = securityService.getUserFromToken(token);
 
-        // Tarkista onko päivälle jo olemassa entry
-        Optional<WorkDay> existingWorkDay = workDayRepository.findByUserAndDate(user.getId(), date);
-
-        WorkDay workDay;
-        if(existingWorkDay.isPresent()) {
-            // Jos olemassa, päivitä olemassa oleva entry
-            workDay = existingWorkDay.get();
-            // Ehkä tarkistus jos päivitetään vuoroa joka on aloitettu mutta ei ole lopetettu ? 
-            
-        } else {
-            // Else tee uusi työpäiväentry
-            workDay = new WorkDay();
-            workDay.setUser(user);
-            workDay.setDate(date);
-        }
-
-        // Loput tiedot
-        workDay.setStartTime(startTime);
-        workDay.setEndTime(endTime);
-        workDay.setBreaksTotal(breaksTotal);
-        workDay.setDescription(description);
-
-        // Tallennus
-        return workDayRepository.save(workDay);
+        // lisää tai päivitä päivän entry yhdellä kyselyllä
+        WorkDay saved = workDayRepository.upsertDay(user.getId(), date, startTime, endTime, breaksTotal,
+                                                    holidayChecker.isHoliday(date), description);
+        monthlyHoursService.refresh(user.getId(), date);
+        changeVersions.bump(ChangeVersions.USER_REPORTS, user.getId());
+        return saved;
     }
 
     @Transactional
     public WorkDay punchIn(User user, LocalTime startTime){
-        WorkDay workDay = new WorkDay();
-        workDay.setUser(user);
-        workDay.setDate(LocalDate.now());
-        workDay.setStartTime(startTime);
-        workDay.setIsHoliday(holidayChecker.isHoliday(LocalDate.now()));
-        workDay.setBreaksTotal(null);
-        workDay.setDescription(null);
-        return workDayRepository.save(workDay);
-        
+        // uusi päivä tai jo aloitettu päivä (tuplaleimaus), yksi kysely. Lopetettu päivä -> IllegalStateException (409)
+        LocalDate today = LocalDate.now();
+        WorkDay saved = workDayRepository.upsertOpenPunchIn(user.getId(), today, startTime, holidayChecker.isHoliday(today))
+                .orElseThrow(() -> new IllegalStateException("Workday already finished"));
+        presenceIndex.punchedIn(user, saved);
+        monthlyHoursService.refresh(user.getId(), today);
+        changeVersions.bump(ChangeVersions.USER_REPORTS, user.getId());
+        return saved;
     }
 
     @Transactional
     public WorkDay punchOut(User user, LocalTime endTime){
-        WorkDay workDay = workDayRepository.findByUserAndDate(user.getId(), LocalDate.now()).orElse(null);
-        if (workDay == null) {
-            throw new IllegalArgumentException("No started workday");
-        }
-        workDay.setEndTime(endTime);
-        return workDayRepository.save(workDay);
+        WorkDay saved = workDayRepository.updatePunchOut(user.getId(), LocalDate.now(), endTime)
+                .orElseThrow(() -> new IllegalArgumentException("No started workday"));
+        presenceIndex.punchedOut(user.getId());
+        monthlyHoursService.refresh(user.getId(), saved.getDate());
+        changeVersions.bump(ChangeVersions.USER_REPORTS, user.getId());
+        return saved;
     }
 
     @Transactional
@@ -115,42 +182,22 @@ public class WorkDayService {
             throw new IllegalArgumentException("Can't fill future dates");
         } 
 
-        // Tarkista onko päivälle jo olemassa entry
-        Optional<WorkDay> existingWorkDay = workDayRepository.findByUserAndDate(user.getId(), date);
-     
-        WorkDay workDay;
-        if(existingWorkDay.isPresent()) {
-            // Jos olemassa, päivitä olemassa oleva entry
-            workDay = existingWorkDay.get();
-            System.out.println("workday: " + workDay);
-            // Ehkä tarkistus jos päivitetään vuoroa joka on aloitettu mutta ei ole lopetettu
-            
-        } else {
-            // Else tee uusi työpäiväentry
-            workDay = new WorkDay();
-            workDay.setUser(user);
-            workDay.setDate(date);
-        }
-      
-
         // pyhäpäivä tarkistus
         Boolean isHoliday = holidayChecker.isHoliday(date);
-        //Boolean isHoliday = false;
 
-        // conversio date -> localdate
-        
-
-        // Loput tiedot
-        workDay.setStartTime(startTime);
-        workDay.setEndTime(endTime);
-        workDay.setBreaksTotal(breaksTotal);
-        workDay.setDescription(description);
-        workDay.setIsHoliday(isHoliday);
-
-
-
-        // Tallennus
-         WorkDay savedWorkDay = workDayRepository.save(workDay);
+        // lisää tai päivitä päivän entry yhdellä kyselyllä
+        WorkDay savedWorkDay = workDayRepository.upsertDay(user.getId(), date, startTime, endTime,
+                                                           breaksTotal, isHoliday, description);
+        monthlyHoursService.refresh(user.getId(), date);
+        changeVersions.bump(ChangeVersions.USER_REPORTS, user.getId());
+        // tämän päivän muokkaus voi aloittaa tai lopettaa vuoron
+        if (date.equals(LocalDate.now())) {
+            if (endTime == null) {
+                presenceIndex.punchedIn(user, savedWorkDay);
+            } else {
+                presenceIndex.punchedOut(user.getId());
+            }
+        }
 
         // Palautus
         WorkDayResponseDTO workDayResponseDTO = new WorkDayResponseDTO();
@@ -161,16 +208,136 @@ public class WorkDayService {
         return workDayResponseDTO;
     }
 
+    // palkanlaskennan summat kannasta, ei rivejä clientille. groupBy: null / "week" / "month"
+    public List<HoursSummaryDTO> getHoursSummary(Long companyId, Long userId, LocalDate from, LocalDate to, String groupBy) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (groupBy != null && !groupBy.equals("week") && !groupBy.equals("month")) {
+            throw new IllegalArgumentException("groupBy must be week or month");
+        }
+        // kokonaiset kuukaudet luetaan monthly_hours rollupista (rivi per käyttäjä per kuukausi), muut raakariveistä
+        boolean wholeMonths = from.getDayOfMonth() == 1 && to.equals(to.withDayOfMonth(to.lengthOfMonth()));
+        List<HoursSummaryRow> rows = wholeMonths && !"week".equals(groupBy)
+                ? monthlyHoursService.summarize(companyId, userId, from, to.withDayOfMonth(1), groupBy != null ? groupBy : "none")
+                : workDayRepository.summarizeHours(companyId, userId, from, to, groupBy != null ? groupBy : "none");
+        return rows.stream()
+                .map(row -> new HoursSummaryDTO(row.getUserId(), row.getFirstName(), row.getLastName(),
+                        row.getPeriodStart() != null ? LocalDate.parse(row.getPeriodStart()) : null,
+                        Math.round(row.getRegularMinutes() / 60.0 * 100) / 100.0,
+                        Math.round(row.getHolidayMinutes() / 60.0 * 100) / 100.0,
+                        row.getBreakMinutes(), row.getDays()))
+                .toList();
+    }
+
+    // monta päivää kerralla (/api/report/batch). Rivit tarkistetaan ensin kaikki, virheelliset raportoidaan ja ohitetaan,
+    // kelvolliset tallennetaan yhdessä transaktiossa: olemassa olevat päivät yhdellä haulla, pyhäpäivät kerran per päivä,
+    // insertit ja updatet JDBC batcheina (hibernate.jdbc.batch_size)
+    @Transactional
+    public List<BatchResultDTO> batchUpdate(User user, List<WorkDayDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("No reports");
+        }
+        if (items.size() > batchMaxSize) {
+            throw new IllegalArgumentException("Too many reports, max " + batchMaxSize);
+        }
+
+        LocalDate today = LocalDate.now();
+        List<BatchResultDTO> results = new ArrayList<>();
+        Map<LocalDate, Integer> validByDate = new HashMap<>();  // päivä -> rivin index
+        for (int i = 0; i < items.size(); i++) {
+            WorkDayDTO item = items.get(i);
+            String error = null;
+            if (item == null || item.getDate() == null) {
+                error = "Date missing";
+            } else if (item.getDate().isAfter(today)) {
+                error = "Can't fill future dates";
+            } else if (item.getStartTime() == null) {
+                error = "Start time missing";
+            } else if (item.getDescription() != null && item.getDescription().length() > 255) {
+                error = "Description can't be longer than 255 characters";
+            } else if (validByDate.containsKey(item.getDate())) {
+                error = "Duplicate date in batch";
+            } else {
+                validByDate.put(item.getDate(), i);
+            }
+            results.add(new BatchResultDTO(i, item != null ? item.getDate() : null, error == null ? null : "failed", error));
+        }
+        if (validByDate.isEmpty()) {
+            return results;
+        }
+
+        // olemassa olevat päivät yhdellä kyselyllä, pyhäpäivät kerran per päivä
+        Map<LocalDate, WorkDay> existing = new HashMap<>();
+        for (WorkDay workDay : workDayRepository.findAllByUserIdAndDateIn(user.getId(), validByDate.keySet())) {
+            existing.put(workDay.getDate(), workDay);
+        }
+        Map<LocalDate, Boolean> holidays = new HashMap<>();
+        validByDate.keySet().forEach(date -> holidays.put(date, holidayChecker.isHoliday(date)));
+
+        List<WorkDay> toSave = new ArrayList<>();
+        for (Map.Entry<LocalDate, Integer> entry : validByDate.entrySet()) {
+            WorkDayDTO item = items.get(entry.getValue());
+            WorkDay workDay = existing.get(entry.getKey());
+            String status = "updated";
+            if (workDay == null) {
+                workDay = new WorkDay();
+                workDay.setUser(user);
+                workDay.setDate(item.getDate());
+                status = "created";
+            }
+            workDay.setStartTime(item.getStartTime());
+            workDay.setEndTime(item.getEndTime());
+            workDay.setBreaksTotal(item.getBreaksTotal());
+            workDay.setDescription(item.getDescription());
+            workDay.setIsHoliday(holidays.get(entry.getKey()));
+            toSave.add(workDay);
+            results.get(entry.getValue()).setStatus(status);
+        }
+        workDayRepository.saveAll(toSave);
+        workDayRepository.flush();  // batchit lähtevät tässä, virhe kaataa koko transaktion
+        monthlyHoursService.refresh(user.getId(), validByDate.keySet());
+        changeVersions.bump(ChangeVersions.USER_REPORTS, user.getId());
+
+        // tämän päivän rivi voi aloittaa tai lopettaa vuoron
+        toSave.stream().filter(workDay -> workDay.getDate().equals(today)).findFirst().ifPresent(workDay -> {
+            if (workDay.getEndTime() == null) {
+                presenceIndex.punchedIn(user, workDay);
+            } else {
+                presenceIndex.punchedOut(user.getId());
+            }
+        });
+        return results;
+    }
+
     public List<WorkDay> getUserShifts(User user) {  // OVERLOAD, Hae default määrä 31
         return getUserShifts(user, 31);
     }
 
     public List<WorkDay> getUserShifts(User user, Integer limit) {  // HAE RAJALLINEN MÄÄRÄ VUOROJA
-        return workDayRepository.findLastShiftsForUser(user.getId(), limit);
+        return getUserShifts(user.getId(), limit);
+    }
+
+    public List<WorkDay> getUserShifts(Long userId, Integer limit) {  // sama käyttäjän id:llä, esim AuthPrincipalista
+        return workDayRepository.findLastShiftsForUser(userId, limit);
+    }
+
+    // listauksiin suoraan DTO:t, ei WorkDay entityjä
+    public List<WorkDayDTO> getUserWorkDayDTOs(Long userId, int limit) {
+        return workDayRepository.findLastWorkDayDTOsForUser(userId, PageRequest.of(0, Math.max(1, limit)));
     }
 
+    @Transactional
     public void deleteShiftByID(Long id) {
-        workDayRepository.deleteById(id);
+        WorkDay workDay = workDayRepository.findById(id).orElse(null);
+        if (workDay == null) {
+            return;
+        }
+        workDayRepository.delete(workDay);
+        workDayRepository.flush();  // rivi pois ennen kuukauden uudelleenlaskentaa
+        presenceIndex.workDayRemoved(id);
+        monthlyHoursService.refresh(workDay.getUser().getId(), workDay.getDate());
+        changeVersions.bump(ChangeVersions.USER_REPORTS, workDay.getUser().getId());
     }
 
     public WorkDay findByID (Long id) {
@@ -181,6 +348,8 @@ public class WorkDayService {
     public void deleteOldWorkDays(int days, Company company){
         LocalDate cutOff = LocalDate.now().minusDays(days);
         workDayRepository.deleteOldReports(cutOff, company.getId());
+        monthlyHoursService.retentionApplied(company.getId(), cutOff);
+        changeVersions.bump(ChangeVersions.COMPANY_REPORTS, company.getId());
     }
 
     
@@ -0,0 +1,55 @@
+package com.backend.server.reportedhours;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+// Kertaluonteinen siirto: reported_hours saa uniikin (user_id, date) indeksin, jota upsert (ON CONFLICT) vaatii.
+// Vanha punchIn lisäsi joka leimauksella uuden rivin, joten saman päivän rivit yhdistetään ensin:
+// aikaisin aloitus, myöhäisin lopetus (tai avoin jos jokin riveistä on avoin), tauot yhteensä. Muut rivit poistetaan.
+// ddl-auto=update ei pysty luomaan indeksiä niin kauan kuin duplikaatteja on, joten indeksi luodaan myös tässä.
+// Ajetaan kuten RefreshTokenMigration schema updaten jälkeen ennen kuin web server ottaa pyyntöjä vastaan (leimaus
+// upsert ei toimi ilman indeksiä) ja ennen PresenceIndexin latausta, yhdistäminen ja indeksi yhdessä transaktiossa.
+// Ajetaan joka käynnistyksessä, mutta ei tee mitään kun indeksi on jo olemassa.
+@Component
+@DependsOn("entityManagerFactory")  // schema update ensin
+public class WorkDayUniqueDayMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public WorkDayUniqueDayMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void mergeDuplicateDays() {
+        transactionTemplate.executeWithoutResult(status -> merge());
+    }
+
+    private void merge() {
+        Integer existing = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'reported_hours' AND indexname = 'uq_reported_hours_user_date'",
+            Integer.class);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        jdbcTemplate.update(
+            "UPDATE reported_hours r SET start_time = g.min_start, end_time = g.merged_end, breaks_total = g.breaks "
+            + "FROM (SELECT user_id, date, MIN(id) AS keep_id, MIN(start_time) AS min_start, "
+            + "CASE WHEN COUNT(*) > COUNT(end_time) THEN NULL ELSE MAX(end_time) END AS merged_end, "
+            + "SUM(breaks_total) AS breaks "
+            + "FROM reported_hours GROUP BY user_id, date HAVING COUNT(*) > 1) g "
+            + "WHERE r.id = g.keep_id");
+        int removed = jdbcTemplate.update(
+            "DELETE FROM reported_hours r USING reported_hours k "
+            + "WHERE r.user_id = k.user_id AND r.date = k.date AND r.id > k.id");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uq_reported_hours_user_date ON reported_hours (user_id, date)");
+        System.out.println("Reported hours merged to one row per user and day, removed duplicates: " + removed);
+    }
+}
@@ -0,0 +1,46 @@
+package com.backend.server.security;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import com.backend.server.users.User;
+import com.backend.server.users.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+// Pyynnön aikainen tunnistettu käyttäjä. AuthenticationFilter täyttää tämän kerran per pyyntö,
+// controllerit lukevat tästä eivätkä parsi tokenia itse.
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class AuthContext {
+    private final UserRepository userRepository;
+
+    private AuthPrincipal principal;
+    private User user;  // ladataan vasta kun controller tarvitsee koko entityn, korkeintaan kerran per pyyntö
+
+    void authenticate(AuthPrincipal principal, User loadedUser) {
+        this.principal = principal;
+        this.user = loadedUser;
+    }
+
+    public boolean isAuthenticated() {
+        return principal != null;
+    }
+
+    // heittää IllegalArgumentExceptionin kuten aiempi getUserFromToken, jotta controllerien catch -> 401 toimii ennallaan
+    public AuthPrincipal getPrincipal() {
+        if (principal == null) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return principal;
+    }
+
+    public User getUser() {
+        if (user == null) {
+            user = userRepository.findById(getPrincipal().getUserId())
+                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        }
+        return user;
+    }
+}
@@ -0,0 +1,17 @@
+package com.backend.server.security;
+
+import com.backend.server.utility.Role;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// muuttumaton kuva tunnistetusta käyttäjästä, tallennetaan PrincipalCacheen
+// ei sisällä entityjä, jotta sitä voi käyttää turvallisesti ilman transaktiota
+@Getter
+@AllArgsConstructor
+public class AuthPrincipal {
+    private final Long userId;
+    private final String email;
+    private final Role role;
+    private final Long companyId;
+}
@@ -0,0 +1,58 @@
+package com.backend.server.security;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Tunnistaa Authorization headerin access tokenin kerran per pyyntö ja tallentaa tuloksen AuthContextiin.
+// Basic (login) ja Kiosk (leimauskioski) headerit ohitetaan, niillä on omat tarkistuksensa.
+// Virheellinen token ei katkaise pyyntöä täällä, vaan RoleInterceptor palauttaa 401 jos endpoint vaatii roolin.
+@Component
+public class AuthenticationFilter extends OncePerRequestFilter {
+
+    private final SecurityService securityService;
+    private final AuthContext authContext;
+    private final Timer authenticatedTimer;
+    private final Timer rejectedTimer;
+
+    public AuthenticationFilter(SecurityService securityService, AuthContext authContext, MeterRegistry meterRegistry) {
+        this.securityService = securityService;
+        this.authContext = authContext;
+        this.authenticatedTimer = Timer.builder("auth.filter.latency").tag("outcome", "authenticated")
+            .description("Time spent resolving the request principal").register(meterRegistry);
+        this.rejectedTimer = Timer.builder("auth.filter.latency").tag("outcome", "rejected")
+            .description("Time spent resolving the request principal").register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // /api/refresh saa headerissa refresh tokenin, se tarkistetaan SecurityServicessä
+        String uri = request.getRequestURI();
+        return !uri.startsWith("/api/") || uri.equals("/api/refresh");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && !authorization.startsWith("Basic ") && !authorization.startsWith("Kiosk ")) {
+            long start = System.nanoTime();
+            try {
+                securityService.authenticateRequest(authorization, authContext);
+                authenticatedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } catch (IllegalArgumentException e) {
+                rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);  // jää tunnistamattomaksi
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,20 @@
+package com.backend.server.security.DTO;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class KioskDeviceDTO {
+    private Long id;
+    private String name;
+    // palautetaan vain luonnissa, myöhemmin avainta ei voi enää hakea
+    private String key;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,46 @@
+package com.backend.server.security;
+
+import com.backend.server.companies.Company;
+import com.backend.server.utility.Auditable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Leimauskioskin pitkäikäinen laiteavain. Tallennetaan vain HMAC tiiviste, itse avain näytetään vain luonnissa.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "kiosk_devices", indexes = {
+    @Index(name = "idx_kiosk_devices_key_digest", columnList = "key_digest", unique = true)
+})
+public class KioskDevice extends Auditable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "company_id", nullable = false)  // kioski saa leimata vain tämän companyn työntekijöitä
+    private Company company;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "key_digest", nullable = false, length = 64, columnDefinition = "char(64)")  // HMAC-SHA256 hex
+    private String keyDigest;
+
+}
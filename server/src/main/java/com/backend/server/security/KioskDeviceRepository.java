@@ -0,0 +1,20 @@
+package com.backend.server.security;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface KioskDeviceRepository extends JpaRepository<KioskDevice, Long> {
+
+    Optional<KioskDevice> findByKeyDigest(String keyDigest);
+
+    List<KioskDevice> findAllByCompanyId(Long companyId);
+
+    // muistissa olevaa hakutaulua varten, vain tiiviste ja company id
+    @Query("SELECT d.keyDigest, d.company.id FROM KioskDevice d")
+    List<Object[]> findAllDigests();
+}
@@ -0,0 +1,142 @@
+package com.backend.server.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.backend.server.companies.Company;
+import com.backend.server.security.DTO.KioskDeviceDTO;
+
+import jakarta.transaction.Transactional;
+
+// Leimauskioskien laiteavaimet. Avain tarkistetaan HMAC tiivisteen perusteella muistista,
+// joten leimaus ei tee BCryptiä eikä tietokantahakua. Hakutaulu ladataan käynnistyksessä ja päivitetään minuutin välein,
+// jotta toisella instanssilla poistettu avain ei jää voimaan.
+// Haku tehdään avaimen HMAC tiivisteellä: kutsuja ei voi valita tiivistettä, joten hakutaulun vertailujen ajoitus
+// ei paljasta tallennetuista avaimista mitään (vastaa vakioaikaista vertailua).
+@Service
+public class KioskDeviceService {
+
+    private static final String KIOSK_PREFIX = "Kiosk ";
+    private static final String LOCAL_SECRET = "localKioskSecret";  // app propertiesin oletus localia varten
+
+    private final KioskDeviceRepository kioskDeviceRepository;
+    private final byte[] hmacKey;
+    private final boolean requireKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private volatile Map<String, Long> companyByDigest = new ConcurrentHashMap<>();  // avaimen tiiviste -> company id
+
+    public KioskDeviceService(KioskDeviceRepository kioskDeviceRepository,
+                              @Value("${kiosk.keySecret}") String keySecret,
+                              @Value("${kiosk.requireKey:false}") boolean requireKey) {
+        // pakollisilla avaimilla oletusavain tekisi tiivisteistä arvattavia
+        if (requireKey && (keySecret == null || keySecret.isBlank() || LOCAL_SECRET.equals(keySecret))) {
+            throw new IllegalStateException("KIOSK_KEY_SECRET must be set when kiosk.requireKey is true");
+        }
+        if (keySecret == null || keySecret.isBlank() || LOCAL_SECRET.equals(keySecret)) {
+            keySecret = LOCAL_SECRET;
+            // console log
+            System.out.println("KIOSK_KEY_SECRET not set, using local kiosk key secret");
+        }
+        this.kioskDeviceRepository = kioskDeviceRepository;
+        this.hmacKey = keySecret.getBytes(StandardCharsets.UTF_8);
+        this.requireKey = requireKey;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void reloadDigests() {
+        Map<String, Long> loaded = new ConcurrentHashMap<>();
+        for (Object[] row : kioskDeviceRepository.findAllDigests()) {
+            loaded.put((String) row[0], (Long) row[1]);
+        }
+        companyByDigest = loaded;
+    }
+
+    // Authorization: Kiosk <avain>. Palauttaa kioskin company id:n, tai null jos avainta ei annettu eikä sitä vaadita.
+    // Väärä tai poistettu avain -> IllegalArgumentException
+    public Long authorizeKiosk(String authorization) {
+        if (authorization == null || !authorization.startsWith(KIOSK_PREFIX)) {
+            if (requireKey) {
+                throw new IllegalArgumentException("Kiosk key required");
+            }
+            return null;
+        }
+        String digest = digest(authorization.substring(KIOSK_PREFIX.length()).trim());
+        Long companyId = companyByDigest.get(digest);
+        if (companyId == null) {
+            throw new IllegalArgumentException("Invalid kiosk key");
+        }
+        return companyId;
+    }
+
+    // sama, mutta avain vaaditaan aina kiosk.requireKey asetuksesta riippumatta (esim. /api/report/punch/sync,
+    // jossa leimaukset tehdään kenelle tahansa companyn työntekijälle ilman käyttäjän omaa tunnistautumista)
+    public Long requireKiosk(String authorization) {
+        Long companyId = authorizeKiosk(authorization);
+        if (companyId == null) {
+            throw new IllegalArgumentException("Kiosk key required");
+        }
+        return companyId;
+    }
+
+    @Transactional
+    public KioskDeviceDTO createDevice(Company company, String name) {
+        byte[] raw = new byte[32];
+        secureRandom.nextBytes(raw);
+        String key = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+
+        KioskDevice device = new KioskDevice();
+        device.setCompany(company);
+        device.setName(name == null || name.isBlank() ? "Kiosk" : name);
+        device.setKeyDigest(digest(key));
+        KioskDevice saved = kioskDeviceRepository.save(device);
+        companyByDigest.put(saved.getKeyDigest(), company.getId());
+
+        return new KioskDeviceDTO(saved.getId(), saved.getName(), key, saved.getCreatedAt());
+    }
+
+    public List<KioskDeviceDTO> getDevices(Long companyId) {
+        return kioskDeviceRepository.findAllByCompanyId(companyId).stream()
+            .map(device -> new KioskDeviceDTO(device.getId(), device.getName(), null, device.getCreatedAt()))
+            .toList();
+    }
+
+    @Transactional
+    public void deleteDevice(Long deviceId, Long companyId) {
+        Optional<KioskDevice> device = kioskDeviceRepository.findById(deviceId);
+        if (device.isEmpty() || !device.get().getCompany().getId().equals(companyId)) {
+            throw new IllegalArgumentException("Kiosk device not found");
+        }
+        kioskDeviceRepository.delete(device.get());
+        companyByDigest.remove(device.get().getKeyDigest());
+    }
+
+    // HMAC-SHA256, jotta vuotanut tietokanta ei yksin riitä avainten arvaamiseen
+    private String digest(String key) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");  // ei thread safe, uusi joka kutsulla
+            mac.init(new SecretKeySpec(hmacKey, "HmacSHA256"));
+            byte[] digest = mac.doFinal(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
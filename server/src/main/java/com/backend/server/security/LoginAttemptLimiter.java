@@ -0,0 +1,95 @@
+package com.backend.server.security;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+// Epäonnistuneiden kirjautumisten laskuri sähköpostin perusteella, kiinteä määrä "raitoja" (stripes),
+// joten muistinkulutus ei kasva sähköpostien määrän mukana. Törmäyksessä kaksi sähköpostia jakaa laskurin.
+// Onnistunut kirjautuminen nollaa raidan vain jos kaikki ikkunan epäonnistumiset olivat samalle sähköpostille,
+// muuten toisen (esim. tarkoituksella törmäävän) käyttäjän kirjautuminen nollaisi hyökkääjän laskurin.
+@Component
+public class LoginAttemptLimiter {
+
+    private final int maxFailures;
+    private final long windowMillis;
+
+    private static final long MIXED_OWNER = 0;
+
+    // jokainen raita: [0] = epäonnistumisia, [1] = ikkunan alku millisekunteina,
+    // [2] = epäonnistuneen sähköpostin tiiviste, MIXED_OWNER jos ikkunassa on ollut useampi sähköposti
+    private final AtomicLong[][] stripes;
+
+    public LoginAttemptLimiter(@Value("${login.maxFailures:5}") int maxFailures,
+                               @Value("${login.failureWindowSeconds:300}") long windowSeconds,
+                               @Value("${login.failureStripes:4096}") int stripeCount) {
+        this.maxFailures = maxFailures;
+        this.windowMillis = windowSeconds * 1000;
+        this.stripes = new AtomicLong[Math.max(1, stripeCount)][];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new AtomicLong[] { new AtomicLong(), new AtomicLong(), new AtomicLong() };
+        }
+    }
+
+    // kutsutaan ennen salasanan tarkistusta, heittää 429 jos raja täynnä
+    public void checkAllowed(String email) {
+        if (maxFailures <= 0) {  // 0 = ei rajaa
+            return;
+        }
+        AtomicLong[] stripe = stripeFor(keyOf(email));
+        long now = System.currentTimeMillis();
+        long windowStart = stripe[1].get();
+        if (now - windowStart > windowMillis) {
+            return;
+        }
+        if (stripe[0].get() >= maxFailures) {
+            long retryAfter = Math.max(1, (windowStart + windowMillis - now) / 1000);
+            throw new LoginThrottledException("Too many failed login attempts", HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+        }
+    }
+
+    public void recordFailure(String email) {
+        String key = keyOf(email);
+        AtomicLong[] stripe = stripeFor(key);
+        long owner = ownerOf(key);
+        long now = System.currentTimeMillis();
+        synchronized (stripe) {
+            if (now - stripe[1].get() > windowMillis || stripe[0].get() == 0) {  // uusi ikkuna tai nollattu
+                stripe[1].set(now);
+                stripe[0].set(0);
+                stripe[2].set(owner);
+            } else if (stripe[2].get() != owner) {
+                stripe[2].set(MIXED_OWNER);
+            }
+            stripe[0].incrementAndGet();
+        }
+    }
+
+    public void recordSuccess(String email) {
+        String key = keyOf(email);
+        AtomicLong[] stripe = stripeFor(key);
+        long owner = ownerOf(key);
+        synchronized (stripe) {
+            if (stripe[2].get() == owner) {  // jaettu raita jää voimaan ikkunan loppuun
+                stripe[0].set(0);
+            }
+        }
+    }
+
+    private static String keyOf(String email) {
+        return email == null ? "" : email.toLowerCase(Locale.ROOT);
+    }
+
+    private AtomicLong[] stripeFor(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    // String.hashCode törmäyksiä on helppo tehdä, joten omistaja tunnistetaan SHA-256 tiivisteen alusta
+    private static long ownerOf(String key) {
+        long owner = Long.parseUnsignedLong(TokenHasher.sha256Hex(key).substring(0, 16), 16);
+        return owner == MIXED_OWNER ? 1 : owner;
+    }
+}
@@ -0,0 +1,20 @@
+package com.backend.server.security;
+
+import org.springframework.http.HttpStatus;
+
+import lombok.Getter;
+
+// heitetään kun salasanan tarkistusta ei tehdä kuormituksen tai liian monen epäonnistuneen yrityksen takia
+// 503 = hash jono täynnä, 429 = sähköpostille liikaa epäonnistuneita yrityksiä
+@Getter
+public class LoginThrottledException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, HttpStatus status, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
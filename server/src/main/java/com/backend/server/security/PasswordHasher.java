@@ -0,0 +1,97 @@
+package com.backend.server.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+// BCrypt ajetaan omassa rajatussa säiepoolissa, ei Tomcatin request säikeissä suoraan.
+// Login ryntäys vuoronvaihdossa hidastaa vain logineja: kun jono on täynnä, vastataan heti 503,
+// eikä CPU:ta jää muille endpointeille liian vähän.
+@Component
+public class PasswordHasher {
+
+    private final Encoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeoutMillis;
+    private final Timer hashTimer;
+    private final Timer queueWaitTimer;
+
+    public PasswordHasher(Encoder encoder, MeterRegistry meterRegistry,
+                          @Value("${passwordHashing.threads:0}") int threads,
+                          @Value("${passwordHashing.queueCapacity:64}") int queueCapacity,
+                          @Value("${passwordHashing.waitTimeoutMs:10000}") long waitTimeoutMillis) {
+        this.encoder = encoder;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);  // 0 = yksi ydin jätetään muille
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());  // jono täynnä -> RejectedExecutionException -> 503
+
+        this.hashTimer = Timer.builder("password_hash.latency")
+            .description("Time spent in BCrypt encode/matches")
+            .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("password_hash.queue_wait")
+            .description("Time a hashing task waited for a free hashing thread")
+            .register(meterRegistry);
+        Gauge.builder("password_hash.queue_depth", executor, e -> e.getQueue().size())
+            .register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T submit(Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            throw new LoginThrottledException("Server busy, try again shortly", HttpStatus.SERVICE_UNAVAILABLE, 1);
+        }
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new LoginThrottledException("Server busy, try again shortly", HttpStatus.SERVICE_UNAVAILABLE, 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
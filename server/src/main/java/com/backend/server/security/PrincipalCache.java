@@ -0,0 +1,103 @@
+package com.backend.server.security;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Välimuisti varmennetuille access tokeneille. Avaimena tokenin SHA-256 tiiviste, arvona AuthPrincipal.
+// Merkintä vanhenee samaan aikaan kuin token, joten välimuisti ei pidennä tokenin voimassaoloa.
+// Koko rajattu, vanhimmat (LRU) poistetaan ensin.
+@Component
+public class PrincipalCache {
+
+    private final int maxEntries;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    public PrincipalCache(@Value("${auth.principalCache.maxEntries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {  // access order = LRU
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PrincipalCache.this.maxEntries;
+            }
+        };
+    }
+
+    public AuthPrincipal get(String token) {
+        String key = TokenHasher.sha256Hex(token);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt.isBefore(Instant.now())) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.principal;
+        }
+    }
+
+    public void put(String token, AuthPrincipal principal, Instant expiresAt) {
+        if (maxEntries <= 0 || expiresAt == null) {
+            return;
+        }
+        String key = TokenHasher.sha256Hex(token);
+        synchronized (entries) {
+            entries.put(key, new Entry(principal, expiresAt));
+        }
+    }
+
+    // käyttäjän tiedot muuttuneet tai käyttäjä poistettu, poista kaikki käyttäjän tokenit välimuistista.
+    // Transaktion sisällä vasta commitin jälkeen: ennen committia rinnakkainen pyyntö lukisi vielä vanhan roolin
+    // kannasta ja tallentaisi sen takaisin välimuistiin
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeUser(userId);
+                }
+            });
+        } else {
+            removeUser(userId);
+        }
+    }
+
+    private void removeUser(Long userId) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> userId.equals(entry.principal.getUserId()));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        private final AuthPrincipal principal;
+        private final Instant expiresAt;
+
+        private Entry(AuthPrincipal principal, Instant expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -4,12 +4,12 @@ import java.time.Instant;
 
 import com.backend.server.users.User;
 
-import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -23,7 +23,11 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_token_hash", columnList = "token_hash", unique = true),  // haku tokenilla
+    @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id"),  // käyttäjän kaikkien tokenien poisto
+    @Index(name = "idx_refresh_tokens_expiry_date", columnList = "expiry_date")  // vanhentuneiden siivous, ks. DataBaseCleaner
+})
 public class RefreshToken {
 
     @Id
@@ -34,11 +38,12 @@ public class RefreshToken {
     @JoinColumn(name = "user_id", nullable=false, referencedColumnName = "id")
     private User user;
 
+    // tokenin SHA-256 tiiviste hex muodossa (ks. TokenHasher), itse tokenia ei tallenneta
+    // vanhaan tauluun sarake ja NOT NULL lisätään RefreshTokenMigrationissa
+    @Column(name = "token_hash", nullable = false, length = 64, columnDefinition = "char(64)")
+    private String tokenHash;
 
-    @Column(nullable=false, unique=true)
-    private String token;
-
-    @Column(nullable=false)
+    @Column(name = "expiry_date", nullable=false)
     private Instant expiryDate;
 
     
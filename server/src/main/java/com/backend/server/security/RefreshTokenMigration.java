@@ -0,0 +1,58 @@
+package com.backend.server.security;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+// Kertaluonteinen siirto: refresh_tokens.token (koko JWT) -> refresh_tokens.token_hash (SHA-256 hex).
+// ddl-auto=update ei poista vanhaa saraketta eikä pysty lisäämään NOT NULL saraketta tauluun jossa on rivejä,
+// joten sarake, täyttö, NOT NULL ja indeksi hoidetaan tässä yhdessä transaktiossa (postgresin DDL on transaktionaalinen).
+// Ajetaan context refreshissä schema updaten jälkeen mutta ennen kuin web server ottaa pyyntöjä vastaan,
+// jolloin kirjautuminen ei koskaan näe puoliksi siirrettyä taulua.
+// Ajetaan joka käynnistyksessä, mutta ei tee mitään kun vanhaa saraketta ei ole ja token_hash on jo NOT NULL.
+@Component
+@DependsOn("entityManagerFactory")  // schema update ensin
+public class RefreshTokenMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public RefreshTokenMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void migrateLegacyTokenColumn() {
+        transactionTemplate.executeWithoutResult(status -> migrate());
+    }
+
+    private void migrate() {
+        Integer legacyColumns = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = 'refresh_tokens' AND column_name = 'token'",
+            Integer.class);
+        if (legacyColumns != null && legacyColumns > 0) {
+            jdbcTemplate.execute("ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash char(64)");
+            // sama tiiviste kuin TokenHasher.sha256Hex, postgresin sha256() (PG 11+)
+            int migrated = jdbcTemplate.update(
+                "UPDATE refresh_tokens SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex') WHERE token_hash IS NULL");
+            jdbcTemplate.execute("ALTER TABLE refresh_tokens DROP COLUMN token");
+            System.out.println("Refresh tokens migrated to hashed storage: " + migrated);
+        }
+        Integer nullable = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = 'refresh_tokens' "
+            + "AND column_name = 'token_hash' AND is_nullable = 'YES'",
+            Integer.class);
+        if (nullable != null && nullable > 0) {
+            // tiivisteettömällä rivillä ei voi kirjautua, käyttäjä kirjautuu uudelleen
+            jdbcTemplate.update("DELETE FROM refresh_tokens WHERE token_hash IS NULL");
+            jdbcTemplate.execute("ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL");
+            jdbcTemplate.execute(
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_refresh_tokens_token_hash ON refresh_tokens (token_hash)");
+        }
+    }
+}
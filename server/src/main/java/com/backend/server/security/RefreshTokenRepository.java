@@ -1,38 +1,44 @@
 package com.backend.server.security;
 
-import java.util.List;
+import java.time.Instant;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import com.backend.server.users.User;
+import jakarta.transaction.Transactional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    // poista Userin perusteella
-    void deleteRefreshTokenByUser(User user);
+    // hae tokenin tiivisteellä, ks. TokenHasher
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // poista tokenin tiivisteellä, yksi DELETE lause
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // poista kaikki käyttäjän tokenit yhdellä DELETE lauseella, ei ladata rivejä
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    // vanhentuneiden tokenien poisto rajattuina erinä, jotta yksi DELETE ei lukitse taulua pitkäksi aikaa
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN (SELECT id FROM refresh_tokens WHERE expiry_date < :now LIMIT :batchSize)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
+
+    // poista käyttäjän vanhimmat sessiot niin, että uusimmat :keep jää jäljelle
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE user_id = :userId AND id NOT IN (SELECT id FROM refresh_tokens WHERE user_id = :userId ORDER BY expiry_date DESC, id DESC LIMIT :keep)", nativeQuery = true)
+    int deleteOldestSessions(@Param("userId") Long userId, @Param("keep") int keep);
 
-    // hae Tokenilla
-    Optional<RefreshToken> findByToken(String token);
-
-    // etsi userin perusteella
-    Optional<RefreshToken> findByUser(User user);
-
-    // etsii kaikki userin perusteella
-    Optional<List<RefreshToken>> findAllByUser(User user);
-
-   
-
-    // poista Tokenilla
-    void deleteByToken(String token);
-
-    
-    // poista useridllä
-    void deleteByUserId(Long userId);
-
-
-
-    
 }
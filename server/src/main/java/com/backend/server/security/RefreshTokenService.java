@@ -1,47 +1,85 @@
 package com.backend.server.security;
 
+import java.time.Instant;
 import java.util.Optional;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.backend.server.users.User;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Service
-@RequiredArgsConstructor
 public class RefreshTokenService {
     private final RefreshTokenRepository refreshTokenRepository;
 
+    // montako voimassa olevaa sessiota (refresh tokenia) käyttäjällä saa olla, vanhin poistetaan loginissa
+    private final int maxSessionsPerUser;
+
+    // vanhentuneiden tokenien poisto erissä, ks. DataBaseCleaner
+    private final int purgeBatchSize;
+
+    private final Counter purgedCounter;
+    private final Counter evictedCounter;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, MeterRegistry meterRegistry,
+                               @Value("${refreshTokens.maxSessionsPerUser:5}") int maxSessionsPerUser,
+                               @Value("${refreshTokens.purgeBatchSize:1000}") int purgeBatchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.purgeBatchSize = Math.max(1, purgeBatchSize);
+        this.purgedCounter = Counter.builder("refresh_tokens.purged")
+            .description("Expired refresh tokens deleted by the retention job")
+            .register(meterRegistry);
+        this.evictedCounter = Counter.builder("refresh_tokens.evicted")
+            .description("Oldest sessions evicted because of the per-user session cap")
+            .register(meterRegistry);
+    }
+
     public RefreshToken saveRefreshToken(RefreshToken refreshToken) {
         return refreshTokenRepository.save(refreshToken);
     }
 
-   /*  public RefreshToken getRefreshTokenByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
-    }*/
-
     public Optional<RefreshToken> getRefreshTokenByToken(String token){
-        return refreshTokenRepository.findByToken(token);
+        return refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex(token));
     }
 
     public void deleteRefreshToken(String token) {
-        refreshTokenRepository.deleteByToken(token);
+        refreshTokenRepository.deleteByTokenHash(TokenHasher.sha256Hex(token));
     }
 
     public void deleteRefreshTokenByUserId(Long userId) {
-        refreshTokenRepository.deleteByUserId(userId);
+        refreshTokenRepository.deleteAllByUserId(userId);
     }
 
     public void deleteRefreshTokenByUser(User user) {
-        refreshTokenRepository.deleteRefreshTokenByUser(user);
+        refreshTokenRepository.deleteAllByUserId(user.getId());
     }
 
+    // kutsutaan loginissa uuden tokenin tallennuksen jälkeen, palauttaa poistettujen sessioiden määrän
+    public int enforceSessionLimit(Long userId) {
+        if (maxSessionsPerUser <= 0) {  // 0 = ei rajaa
+            return 0;
+        }
+        int evicted = refreshTokenRepository.deleteOldestSessions(userId, maxSessionsPerUser);
+        evictedCounter.increment(evicted);
+        return evicted;
+    }
 
+    // poistaa vanhentuneet tokenit erissä kunnes niitä ei enää ole, palauttaa poistettujen määrän
+    public long purgeExpiredTokens() {
+        Instant now = Instant.now();
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);  // jokainen erä omassa transaktiossa
+            purged += deleted;
+        } while (deleted >= purgeBatchSize);
+        purgedCounter.increment(purged);
+        return purged;
+    }
 
-
-
-
-    
 }
@@ -0,0 +1,16 @@
+package com.backend.server.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.backend.server.utility.Role;
+
+// Endpointin vaatima vähimmäisrooli (worker < supervisor < master), tarkistetaan RoleInterceptorissa.
+// Ilman annotaatiota endpoint ei vaadi tunnistautumista.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequireRole {
+    Role value() default Role.WORKER;
+}
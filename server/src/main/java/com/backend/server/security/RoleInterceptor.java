@@ -0,0 +1,38 @@
+package com.backend.server.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+// Tarkistaa endpointin @RequireRole vaatimuksen AuthenticationFilterin täyttämästä AuthContextista.
+// Interceptor eikä filter, koska vasta tässä vaiheessa tiedetään mikä controller metodi pyynnön käsittelee.
+@Component
+@RequiredArgsConstructor
+public class RoleInterceptor implements HandlerInterceptor {
+
+    private final AuthContext authContext;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;  // esim. CORS preflight
+        }
+        RequireRole requireRole = handlerMethod.getMethodAnnotation(RequireRole.class);
+        if (requireRole == null) {
+            return true;
+        }
+        if (!authContext.isAuthenticated() || authContext.getPrincipal().getRole() == null
+                || authContext.getPrincipal().getRole().ordinal() < requireRole.value().ordinal()) { // worker = 0, supervisor = 1, master = 2
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Unauthorized");
+            return false;
+        }
+        return true;
+    }
+}
@@ -24,6 +24,7 @@ import com.backend.server.security.DTO.UpdatePassWordDTO;
 import com.backend.server.users.User;
 import com.backend.server.users.UserRepository;
 import com.backend.server.utility.LoginResponse;
+import com.backend.server.utility.Role;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -35,6 +36,7 @@ import lombok.RequiredArgsConstructor;
 public class SecurityRestController {
     private final SecurityService securityService;
     private final UserRepository userRepository;
+    private final AuthContext authContext;
  
   
 
@@ -52,17 +54,20 @@ public class SecurityRestController {
     } catch (IllegalArgumentException e) {
         // Catch argumentexceptionille
         return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (LoginThrottledException e) {
+        return throttled(e);
     } catch (Exception e) {
         // Jos tarvitsee debugata jotain muuta niin 500
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
     }
 }
 
+    @RequireRole
     @PutMapping("/user/update") // käyttäjän omien tietojen päivitys, ei salasanan
-    public ResponseEntity<?> updateUser(@Valid @RequestBody UpdateDTO DTO, @RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> updateUser(@Valid @RequestBody UpdateDTO DTO) {
         try{
             // käyttäjä tokenista
-            User user = securityService.getUserFromToken(token);
+            User user = authContext.getUser();
             Boolean isMaster = securityService.isMaster(user.getRole());
             
 
@@ -84,14 +89,12 @@ public class SecurityRestController {
     }
     }
 
+    @RequireRole(Role.MASTER)
     @PutMapping("/user/update/{userId}") // käyttäjän tietojen päivitys, ei salasanan, vain master ja vain muille
-    public ResponseEntity<?> updateOtherUser (@Valid @RequestBody UpdateDTO DTO, @RequestHeader("Authorization") String token, @PathVariable Long userId) {
+    public ResponseEntity<?> updateOtherUser (@Valid @RequestBody UpdateDTO DTO, @PathVariable Long userId) {
         try {
-            User master = securityService.getUserFromToken(token);
+            User master = authContext.getUser();
             Boolean personalUpdate = master.getId() == userId;
-            if (!securityService.isMaster(master.getRole())) {
-                return ResponseEntity.status(401).body("Unauthorized");
-            }
             User targetUser = userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
             // katso että companyt samat
             if (targetUser.getCompany().getId() != master.getCompany().getId()) {
@@ -118,29 +121,30 @@ public class SecurityRestController {
     }
     }
 
+    @RequireRole
     @PutMapping("/user/update/password") // käyttäjän oman salasanan päivitys. 
-    public ResponseEntity<?> updatePassword(@Valid @RequestBody UpdatePassWordDTO DTO, @RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> updatePassword(@Valid @RequestBody UpdatePassWordDTO DTO) {
         try {
-            User user = securityService.getUserFromToken(token);
+            User user = authContext.getUser();
             securityService.updatePassword(user, DTO.getNewPassword());
              return ResponseEntity.ok("Password updated successfully");
         }
         catch (IllegalArgumentException e) {
             // Catch argumentexceptionille
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (LoginThrottledException e) {
+            return throttled(e);
         } catch (Exception e) {
             // Jos tarvitsee debugata jotain muuta niin 500
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
     }
     }
 
+    @RequireRole(Role.MASTER)
     @PutMapping("/user/update/password/{userId}") // käyttäjän salasanan päivitys, vain master
-    public ResponseEntity<?> resetPassword(@Valid @RequestBody UpdatePassWordDTO DTO, @RequestHeader("Authorization") String token, @PathVariable Long userId) {
+    public ResponseEntity<?> resetPassword(@Valid @RequestBody UpdatePassWordDTO DTO, @PathVariable Long userId) {
         try {
-            User master = securityService.getUserFromToken(token);
-            if (!securityService.isMaster(master.getRole())) {
-                return ResponseEntity.status(401).body("Unauthorized");
-            }
+            User master = authContext.getUser();
             Optional<User> targetUser = userRepository.findById(userId);
             if (targetUser.isEmpty()) {
                 return ResponseEntity.status(401).body("Target user not found");
@@ -155,6 +159,8 @@ public class SecurityRestController {
         catch (IllegalArgumentException e) {
             // Catch argumentexceptionille
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (LoginThrottledException e) {
+            return throttled(e);
         } catch (Exception e) {
             // Jos tarvitsee debugata jotain muuta niin 500
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -188,6 +194,9 @@ public class SecurityRestController {
         } catch (IllegalArgumentException e) {
             // Kutsuttu functio käyttää throw new IllegalArgumentExceptionia, josta viesti
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        } catch (LoginThrottledException e) {
+            // hash jono täynnä (503) tai liikaa epäonnistuneita yrityksiä (429)
+            return throttled(e);
         }
     }
 
@@ -218,6 +227,9 @@ public class SecurityRestController {
         } catch (IllegalArgumentException e) {
             // Kutsuttu functio käyttää throw new IllegalArgumentExceptionia, josta viesti
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        } catch (LoginThrottledException e) {
+            // hash jono täynnä (503) tai liikaa epäonnistuneita yrityksiä (429)
+            return throttled(e);
         }
     }
 
@@ -228,19 +240,8 @@ public class SecurityRestController {
             refreshToken = refreshToken.substring(7);
         }
         try {
-            String newAccessToken = securityService.refreshAccessToken(refreshToken);
-            User user = securityService.getUserFromToken(newAccessToken);
-            // muodosta vastaus JSON
-            LoginResponse response = new LoginResponse();
-            response.setUserId(user.getId());
-            response.setToken(newAccessToken);
-            response.setRole(user.getRole());
-            response.setCompanyname(user.getCompany().getCompanyName());
-            response.setCompanySettings(user.getCompany().getSettings());
-            response.setFirstName(user.getFirstName());
-            response.setLastName(user.getLastName());
-            response.setEmail(user.getEmail());
-            response.setPhoneNumber(user.getPhoneNumber());
+            // uusi access token ja vastaus samalla käyttäjähaulla
+            LoginResponse response = securityService.refreshLogin(refreshToken);
 
             // lähetä json
             return ResponseEntity.ok(response);
@@ -250,10 +251,11 @@ public class SecurityRestController {
         }
     }
 
+    @RequireRole
     @DeleteMapping("/logout")
-    public ResponseEntity<?> logout(@Valid @RequestHeader("Authorization") String accessToken) {
+    public ResponseEntity<?> logout() {
         try {
-            User user = securityService.getUserFromToken(accessToken);
+            User user = authContext.getUser();
             securityService.logout(user);
             return ResponseEntity.ok("Logged out successfully");
         } catch (IllegalArgumentException e) {
@@ -265,4 +267,10 @@ public class SecurityRestController {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
+
+    private ResponseEntity<?> throttled(LoginThrottledException e) {
+        return ResponseEntity.status(e.getStatus())
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
 }
@@ -1,8 +1,6 @@
 package com.backend.server.security;
 
 import java.time.Instant;
-import java.util.Date;
-import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -10,9 +8,6 @@ import org.springframework.boot.autoconfigure.data.redis.RedisProperties.Lettuce
 import org.springframework.stereotype.Service;
 
 // import com.backend.server.companies.CompanyRepository;
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.JWTVerifier;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.backend.server.companies.CompAppEmailsRepository;
@@ -20,6 +15,7 @@ import com.backend.server.companies.Company;
 import com.backend.server.companies.CompanyApprovedEmails;
 
 import com.backend.server.security.DTO.UpdateDTO;
+import com.backend.server.shifts.RosterCache;
 import com.backend.server.users.User;
 import com.backend.server.users.UserRepository;
 import com.backend.server.utility.LoginResponse;
@@ -37,10 +33,12 @@ public class SecurityService {
     // private final CompanyRepository companyRepository;   // tarviikohan?
     private final CompAppEmailsRepository companyApprovedEmailsRepository;
     private final RefreshTokenRepository refreshTokenRepository;
-    private final Encoder encoder;
-
-    @Value("${jwt.secret}") // application.properties
-    private String jwtKey;
+    private final RefreshTokenService refreshTokenService;
+    private final PasswordHasher passwordHasher;  // BCrypt rajatussa säiepoolissa, ks. PasswordHasher
+    private final LoginAttemptLimiter loginAttemptLimiter;
+    private final PrincipalCache principalCache;
+    private final RosterCache rosterCache;
+    private final TokenEngine tokenEngine;  // allekirjoitus ja varmennus, avaimet application.properties
 
     @Value("${jwt.refreshToken.expirationTime}")
     private String refreshTokenExpirationTimeString;
@@ -90,7 +88,7 @@ public class SecurityService {
         Company company = approvedEmail.getCompany();
 
 
-        String encodedPassword = encoder.encode(password);
+        String encodedPassword = passwordHasher.encode(password);
 
         User user = new User();
         user.setEmail(email);
@@ -137,7 +135,12 @@ public class SecurityService {
             targetUser.setPhoneNumber(dto.getPhoneNumber());
         }
 
-        return userRepository.save(targetUser);
+        User savedUser = userRepository.save(targetUser);
+        principalCache.invalidateUser(savedUser.getId());  // email tai rooli voi muuttua, poista välimuistista
+        if (dto.getFirstName() != null || dto.getLastName() != null) {
+            rosterCache.invalidate(savedUser.getCompany().getId());  // nimet työvuorolistoissa
+        }
+        return savedUser;
     }
     
     @Transactional
@@ -154,6 +157,7 @@ public class SecurityService {
     public void deleteUserAndApprovedEmail(User targetUser, CompanyApprovedEmails approvedEmail) {
         userRepository.delete(targetUser);
         companyApprovedEmailsRepository.delete(approvedEmail);
+        rosterCache.invalidate(targetUser.getCompany().getId());
         String errorMessage = ""; // tarkista onnistuiko poisto, jos ei, heitä virhe
         if (userRepository.findByEmail(targetUser.getEmail()).isPresent()) {
             errorMessage = "User deletion failed.";
@@ -165,6 +169,7 @@ public class SecurityService {
         if (errorMessage != null) {
             throw new IllegalArgumentException(errorMessage);
         }
+        principalCache.invalidateUser(targetUser.getId());
     }
 
     @Transactional
@@ -182,27 +187,34 @@ public class SecurityService {
         userRepository.save(targetUser);
         approvedEmail.setRole(role);
         companyApprovedEmailsRepository.save(approvedEmail);
+        principalCache.invalidateUser(targetUser.getId());
     }
 
     @Transactional
     public void updatePassword(User targetUser, String newPassword) {
-        String encodedPassword = encoder.encode(newPassword);
+        String encodedPassword = passwordHasher.encode(newPassword);
         targetUser.setPassword(encodedPassword);
         expireAllTokens(targetUser.getEmail());
         userRepository.save(targetUser);
+        principalCache.invalidateUser(targetUser.getId());
     }
 
 
     public LoginResponse login(String email, String password){
 
+    // liikaa epäonnistuneita yrityksiä tälle sähköpostille -> 429 ennen tietokantaa ja BCryptiä
+    loginAttemptLimiter.checkAllowed(email);
+
     Optional<User> userOptional = userRepository.findByEmail(email);
 
         if(userOptional.isPresent()) {
             User user = userOptional.get();
-            if(encoder.matches(password, user.getPassword())) {
+            if(passwordHasher.matches(password, user.getPassword())) {
+                loginAttemptLimiter.recordSuccess(email);
                 String token = createAccessToken(user.getEmail(), user.getRole());
                 String refreshToken = createRefreshToken(user.getEmail(), user.getRole());
                 saveRefreshToken(user, refreshToken);  // refresh token tietokantaan
+                refreshTokenService.enforceSessionLimit(user.getId());  // liian monta sessiota -> vanhimmat pois
                 LoginResponse response = new LoginResponse();
                 response.setUserId(user.getId());
                 response.setToken(token);
@@ -217,10 +229,12 @@ public class SecurityService {
                 return response;
             }
             else {
+                loginAttemptLimiter.recordFailure(email);
                 throw new IllegalArgumentException("Wrong password");
             }
         }
         else {
+            loginAttemptLimiter.recordFailure(email);
             throw new IllegalArgumentException("User not found");
         }
     }
@@ -231,26 +245,16 @@ public class SecurityService {
     
 
     public String createAccessToken(String email, Role role) {
-        Algorithm algorithm = Algorithm.HMAC256(jwtKey);
-            return JWT.create()
-            .withSubject(email)
-            .withClaim("role", role.toString())
-            .withExpiresAt(new Date(System.currentTimeMillis() + accessTokenExpirationTime)) 
-            .sign(algorithm);
+        return tokenEngine.sign(email, role, accessTokenExpirationTime);
     }
 
     public String createRefreshToken(String email, Role role){
-        Algorithm algorithm = Algorithm.HMAC256(jwtKey);
-        return JWT.create()
-            .withSubject(email)
-            .withClaim("role", role.toString())
-            .withExpiresAt(new Date(System.currentTimeMillis() + refreshTokenExpirationTime)) 
-            .sign(algorithm);
+        return tokenEngine.sign(email, role, refreshTokenExpirationTime);
     }
 
     public void saveRefreshToken(User user, String refreshToken){
         RefreshToken token = new RefreshToken();
-        token.setToken(refreshToken);
+        token.setTokenHash(TokenHasher.sha256Hex(refreshToken));  // tallennetaan vain tiiviste
         token.setUser(user);
         token.setExpiryDate(Instant.now().plusMillis(refreshTokenExpirationTime));  // Set expiry date
         refreshTokenRepository.save(token);
@@ -258,6 +262,11 @@ public class SecurityService {
 
 
     public String refreshAccessToken(String refreshToken) {
+        return refreshLogin(refreshToken).getToken();
+    }
+
+    // uusi access token ja käyttäjän tiedot samalla käyttäjähaulla, ks. /api/refresh
+    public LoginResponse refreshLogin(String refreshToken) {
         // email tokenista
         String emailFromToken = verifyToken(refreshToken);
         if (emailFromToken == null || emailFromToken.isEmpty()) {
@@ -265,7 +274,7 @@ public class SecurityService {
         }
     
         // katso löytyykö refreshtoken tietokannasta
-        RefreshToken confirmedToken = refreshTokenRepository.findByToken(refreshToken)
+        RefreshToken confirmedToken = refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex(refreshToken))
                 .orElseThrow(() -> new IllegalArgumentException("Invalid token: Token not found."));
     
         // katso onko token voimassa
@@ -273,98 +282,135 @@ public class SecurityService {
             throw new IllegalArgumentException("Invalid token: Token expired.");
         }
     
-        // katso löytyykö refreshtokenin email tietokannasta
-        User user = userRepository.findByEmail(emailFromToken)
-                .orElseThrow(() -> new IllegalArgumentException("User not found for the provided token."));
+        // refreshtokenin käyttäjä, ladattu jo tokenin mukana
+        User user = confirmedToken.getUser();
     
         // vertaa tokenin emailia ja tietokannan emailia
-        if (!user.getEmail().equals(confirmedToken.getUser().getEmail())) {
+        if (!user.getEmail().equals(emailFromToken)) {
             throw new IllegalArgumentException("Invalid token: Token does not match the logged-in user.");
         }
     
-        // Generate a new access token
-        return createAccessToken(user.getEmail(), user.getRole());
+        // muodosta vastaus uudella access tokenilla
+        LoginResponse response = new LoginResponse();
+        response.setUserId(user.getId());
+        response.setToken(createAccessToken(user.getEmail(), user.getRole()));
+        response.setRole(user.getRole());
+        response.setCompanyname(user.getCompany().getCompanyName());
+        response.setCompanySettings(user.getCompany().getSettings());
+        response.setFirstName(user.getFirstName());
+        response.setLastName(user.getLastName());
+        response.setEmail(user.getEmail());
+        response.setPhoneNumber(user.getPhoneNumber());
+        return response;
     }
     
     
     public void expireAllTokens(String email){
         Optional<User> userOptional = userRepository.findByEmail(email);
         if(userOptional.isPresent()) {
-            User user = userOptional.get();
-           // listaa kaikki käyttäjän refresh tokenit
-            Optional<List<RefreshToken>> userTokens = refreshTokenRepository.findAllByUser(user);
-            // jos löytyy, poista jokainen
-            if(userTokens.isPresent()){
-                for(RefreshToken token : userTokens.get()){
-                    // poista token
-                    refreshTokenRepository.delete(token);
-                }
-            }
-            else{
-                throw new IllegalArgumentException("User has no refresh tokens");
-            }
-            refreshTokenRepository.deleteRefreshTokenByUser(user);
+            // poista kaikki käyttäjän refresh tokenit yhdellä lauseella
+            refreshTokenRepository.deleteAllByUserId(userOptional.get().getId());
         }
         else {
             throw new IllegalArgumentException("User not found");
         }
     }
 
-    public void logout(User user){  // tarkista onko userilla refreshtoken, jos on, poista kaikki
-       // listaa kaikki käyttäjän refreshtokenit
-       Optional<List<RefreshToken>> userTokens = refreshTokenRepository.findAllByUser(user);
-         if(userTokens.isPresent()){
-             for(RefreshToken token : userTokens.get()){
-                    refreshTokenRepository.delete(token);
-             }
-            }
-        // jos ei löydy, älä tee mitään
+    public void logout(User user){  // poista kaikki käyttäjän refreshtokenit, jos ei ole niin ei tee mitään
+        refreshTokenRepository.deleteAllByUserId(user.getId());
     }
 
   
 
     public Role checkRoleFromToken(String token){
-        Algorithm algorithm = Algorithm.HMAC256(jwtKey);
-        Role role = Role.valueOf(JWT.require(algorithm).build().verify(token).getClaim("role").asString());
+        Role role = Role.valueOf(tokenEngine.verify(stripBearer(token)).getClaim("role").asString());
         return role;
     }
 
     public String verifyToken(String token){    // Toimii bearer prefixillä tai ilman
-        Algorithm algo = Algorithm.HMAC256(jwtKey);
-        JWTVerifier verifier = JWT.require(algo).build();
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-        }
         try {
-            DecodedJWT decodedJWT = verifier.verify(token);
+            DecodedJWT decodedJWT = tokenEngine.verify(stripBearer(token));
             return decodedJWT.getSubject();
         } catch (JWTVerificationException e) {
             return null;
         }
     }
 
-    public Role verifyTokenAndRole(String token){
-        if(verifyToken(token)!=null){
-            return checkRoleFromToken(token);
-        }
-        else{
+    public Role verifyTokenAndRole(String token){  // yksi dekoodaus ja varmennus, rooli samasta tuloksesta
+        try {
+            return Role.valueOf(tokenEngine.verify(stripBearer(token)).getClaim("role").asString());
+        } catch (JWTVerificationException e) {
             return null;
         }
     }
 
+    // Kevyt versio getUserFromTokenista: palauttaa välimuistista id:n, emailin, roolin ja company id:n.
+    // Välimuistiosumalla ei tehdä allekirjoituksen tarkistusta eikä tietokantahakua.
+    public AuthPrincipal getPrincipalFromToken(String token) {
+        String rawToken = stripBearer(token);
+        AuthPrincipal cached = principalCache.get(rawToken);
+        if (cached != null) {
+            return cached;
+        }
+        DecodedJWT decodedJWT = decodeVerifiedToken(rawToken);
+        User user = userRepository.findByEmail(decodedJWT.getSubject())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        return cachePrincipal(rawToken, user, decodedJWT);
+    }
+
     public User getUserFromToken(String token) {
-        String email = verifyToken(token);
-       
-        Optional<User> userOptional = userRepository.findByEmail(email);
+        String rawToken = stripBearer(token);
+        AuthPrincipal cached = principalCache.get(rawToken);
+        if (cached != null) {  // token jo varmennettu, haetaan vain entity
+            return userRepository.findById(cached.getUserId())
+                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        }
+        DecodedJWT decodedJWT = decodeVerifiedToken(rawToken);
+        User user = userRepository.findByEmail(decodedJWT.getSubject())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        cachePrincipal(rawToken, user, decodedJWT);
+        return user;
+    }
 
-        if(userOptional.isPresent()) {
-            return userOptional.get();
+    // AuthenticationFilterin kutsuma: yksi varmennus ja korkeintaan yksi käyttäjähaku per pyyntö.
+    // Välimuistin ohi mennessä ladattu User annetaan AuthContextille, jottei sitä haeta uudelleen.
+    public void authenticateRequest(String token, AuthContext authContext) {
+        String rawToken = stripBearer(token);
+        AuthPrincipal cached = principalCache.get(rawToken);
+        if (cached != null) {
+            authContext.authenticate(cached, null);
+            return;
+        }
+        DecodedJWT decodedJWT = decodeVerifiedToken(rawToken);
+        User user = userRepository.findByEmail(decodedJWT.getSubject())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        authContext.authenticate(cachePrincipal(rawToken, user, decodedJWT), user);
+    }
+
+    private AuthPrincipal cachePrincipal(String rawToken, User user, DecodedJWT decodedJWT) {
+        AuthPrincipal principal = new AuthPrincipal(user.getId(), user.getEmail(), user.getRole(), user.getCompany().getId());
+        principalCache.put(rawToken, principal, decodedJWT.getExpiresAtAsInstant());  // TTL = tokenin vanhenemisaika
+        return principal;
+    }
+
+    private DecodedJWT decodeVerifiedToken(String rawToken) {
+        if (rawToken == null || rawToken.isEmpty()) {
+            throw new IllegalArgumentException("User not found");
         }
-        else {
+        try {
+            return tokenEngine.verify(rawToken);
+        } catch (JWTVerificationException e) {
             throw new IllegalArgumentException("User not found");
         }
     }
 
+    private String stripBearer(String token) {
+        if (token != null && token.startsWith("Bearer ")) {
+            return token.substring(7);
+        }
+        return token;
+    }
+
     public Company getCompanyFromToken(String token) {
         String email = verifyToken(token);
         Optional<User> userOptional = userRepository.findByEmail(email);
@@ -415,6 +461,7 @@ public class SecurityService {
         User user = userRepository.findById(userId).orElse(null);
         user.setRole(role);
         userRepository.save(user);
+        principalCache.invalidateUser(userId);
     }
 
 
@@ -0,0 +1,86 @@
+package com.backend.server.security;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.backend.server.utility.Role;
+
+// JWT allekirjoitus ja varmennus yhdessä paikassa. Algorithm ja JWTVerifier ovat thread safe,
+// joten ne rakennetaan kerran käynnistyksessä eikä joka kutsulla.
+// Avainten vaihto: uusi avain jwt.secret, vanha siirretään jwt.previousSecrets listaan, jolloin
+// vanhoilla avaimilla allekirjoitetut tokenit toimivat vanhenemiseensa asti. Avain valitaan tokenin kid headerista.
+@Component
+public class TokenEngine {
+
+    private final String activeKeyId;
+    private final Algorithm activeAlgorithm;
+    private final Map<String, JWTVerifier> verifiers = new LinkedHashMap<>();  // kid -> verifier, aktiivinen ensin
+
+    public TokenEngine(@Value("${jwt.secret}") String secret,
+                       @Value("${jwt.previousSecrets:}") String previousSecrets) {
+        this.activeKeyId = keyIdFor(secret);
+        this.activeAlgorithm = Algorithm.HMAC256(secret);
+        verifiers.put(activeKeyId, JWT.require(activeAlgorithm).build());
+
+        for (String previous : previousSecrets.split(",")) {
+            String trimmed = previous.trim();
+            if (!trimmed.isEmpty()) {
+                verifiers.putIfAbsent(keyIdFor(trimmed), JWT.require(Algorithm.HMAC256(trimmed)).build());
+            }
+        }
+    }
+
+    public String sign(String subject, Role role, long expirationTimeMs) {
+        return JWT.create()
+            .withKeyId(activeKeyId)
+            .withSubject(subject)
+            .withClaim("role", role.toString())
+            .withExpiresAt(new Date(System.currentTimeMillis() + expirationTimeMs))
+            .sign(activeAlgorithm);
+    }
+
+    // dekoodaa tokenin kerran ja varmentaa sen kid:n mukaisella avaimella, heittää JWTVerificationExceptionin
+    public DecodedJWT verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new JWTDecodeException("Missing token");
+        }
+        DecodedJWT decoded = JWT.decode(token);
+        String keyId = decoded.getKeyId();
+        if (keyId != null) {
+            JWTVerifier verifier = verifiers.get(keyId);
+            if (verifier == null) {
+                throw new JWTVerificationException("Unknown key id");
+            }
+            return verifier.verify(decoded);
+        }
+        // ennen kid headeria allekirjoitetut tokenit, kokeillaan avaimet järjestyksessä
+        JWTVerificationException lastError = null;
+        for (JWTVerifier verifier : verifiers.values()) {
+            try {
+                return verifier.verify(decoded);
+            } catch (JWTVerificationException e) {
+                lastError = e;
+            }
+        }
+        throw lastError;
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    // kid johdetaan avaimesta, jotta erillistä konfiguraatiota ei tarvita
+    private static String keyIdFor(String secret) {
+        return TokenHasher.sha256Hex(secret).substring(0, 12);
+    }
+}
@@ -0,0 +1,24 @@
+package com.backend.server.shifts.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// /api/shifts/roster rivi: yksi vuoro yhdelle työntekijälle. endTime, breaksTotal ja description vapaaehtoisia,
+// kuten /api/shifts/update: puuttuva arvo ei ylikirjoita olemassa olevan vuoron arvoa
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RosterEntryDTO {
+    private Long userId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Integer breaksTotal;
+    private String description;
+}
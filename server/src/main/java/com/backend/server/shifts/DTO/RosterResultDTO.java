@@ -0,0 +1,22 @@
+package com.backend.server.shifts.DTO;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// /api/shifts/roster tulos per lähetetty rivi, index = rivin paikka pyynnön listassa.
+// status: "created", "updated" tai "failed" (message kertoo syyn), kuten /api/report/batch
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RosterResultDTO {
+    private int index;
+    private Long userId;
+    private LocalDate date;
+    private String status;
+    private String message;
+}
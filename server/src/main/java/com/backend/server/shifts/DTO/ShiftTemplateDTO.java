@@ -0,0 +1,42 @@
+package com.backend.server.shifts.DTO;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import com.backend.server.shifts.ShiftTemplate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// toistuva vuoro /api/shifts/templates pyynnöissä ja vastauksissa. Pyynnössä nimet ja company jätetään huomiotta
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShiftTemplateDTO {
+    private Long id;
+    private Long userId;
+    private String firstName;
+    private String lastName;
+    private List<DayOfWeek> weekdays;  // esim. ["MONDAY", "WEDNESDAY"]
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Integer breaksTotal;
+    private String description;
+    private LocalDate validFrom;
+    private LocalDate validTo;
+    private Long companyId;
+    private String companyName;
+
+    // ShiftTemplateRepositoryn JPQL projektiota varten, viikonpäivät bittimaskista
+    public ShiftTemplateDTO(Long id, Long userId, String firstName, String lastName, int weekdays, LocalTime startTime,
+                            LocalTime endTime, Integer breaksTotal, String description, LocalDate validFrom,
+                            LocalDate validTo, Long companyId, String companyName) {
+        this(id, userId, firstName, lastName, ShiftTemplate.toDays(weekdays), startTime, endTime, breaksTotal,
+                description, validFrom, validTo, companyId, companyName);
+    }
+}
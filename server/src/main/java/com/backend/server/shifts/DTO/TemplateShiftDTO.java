@@ -0,0 +1,24 @@
+package com.backend.server.shifts.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// toistuvasta vuorosta laskettu vuoro listauksissa. id on null (ei shifts riviä), templateId kertoo mistä tuli
+@Getter
+@Setter
+@NoArgsConstructor
+public class TemplateShiftDTO extends ShiftListDTO {
+    private Long templateId;
+
+    public TemplateShiftDTO(ShiftTemplateDTO template, LocalDate date) {
+        super(null, template.getUserId(), template.getFirstName(), template.getLastName(),
+                template.getBreaksTotal() != null ? template.getBreaksTotal() : 0, date, template.getStartTime(),
+                template.getEndTime(), template.getDescription() != null ? template.getDescription() : "",
+                template.getCompanyId(), template.getCompanyName());
+        this.templateId = template.getId();
+    }
+}
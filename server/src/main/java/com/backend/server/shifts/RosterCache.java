@@ -0,0 +1,151 @@
+package com.backend.server.shifts;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.backend.server.shifts.DTO.ShiftListDTO;
+import com.backend.server.shifts.DTO.ShiftTemplateDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Companyn työvuorolista (kaikki vuorot ShiftListDTO:ina) muistissa /api/shifts/everyone ja /others listauksille.
+// Jokaisella companyllä versionumero, jota ShiftService kasvattaa vuoron lisäyksessä / poistossa / siivouksessa
+// (ja SecurityService / CompanyService nimien muuttuessa) commitin jälkeen. Lista ladataan kannasta vain kun
+// versio on vaihtunut, muuten suodatus (tulevat, "paitsi omat") tehdään muistissa ilman kyselyjä.
+// Companyn toistuvat vuorot (ShiftTemplate) ladataan samalla ja vanhenevat samalla versiolla.
+// LRU: vähiten käytettyjen companyjen listat poistetaan kun rivejä on yhteensä yli shifts.rosterCache.maxRows.
+// Toimii yhden instanssin sisällä, kuten PresenceIndex.
+@Component
+public class RosterCache {
+
+    private final ShiftRepository shiftRepository;
+    private final ShiftTemplateRepository shiftTemplateRepository;
+    private final int maxRows;
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);  // access order = LRU
+    private final Counter hits;
+    private final Counter misses;
+    private long cachedRows;
+
+    public RosterCache(ShiftRepository shiftRepository, ShiftTemplateRepository shiftTemplateRepository,
+                       MeterRegistry meterRegistry, @Value("${shifts.rosterCache.maxRows:200000}") int maxRows) {
+        this.shiftRepository = shiftRepository;
+        this.shiftTemplateRepository = shiftTemplateRepository;
+        this.maxRows = maxRows;
+        this.hits = Counter.builder("roster_cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("roster_cache.misses").register(meterRegistry);
+    }
+
+    public long version(Long companyId) {
+        return versions.computeIfAbsent(companyId, id -> new AtomicLong()).get();
+    }
+
+    // companyn lista vanhentuu. Transaktion sisällä vasta commitin jälkeen, jotta commitia ennen luettu vanha lista
+    // ei jää voimaan uudella versiolla
+    public void invalidate(Long companyId) {
+        if (companyId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(companyId);
+                }
+            });
+        } else {
+            bump(companyId);
+        }
+    }
+
+    // kaikki vuorot päivämääräjärjestyksessä
+    public List<ShiftListDTO> all(Long companyId) {
+        return roster(companyId).shifts;
+    }
+
+    public List<ShiftListDTO> future(Long companyId, LocalDate from) {
+        return roster(companyId).shifts.stream().filter(shift -> !shift.getDate().isBefore(from)).toList();
+    }
+
+    public List<ShiftListDTO> futureForUser(Long companyId, Long userId, LocalDate from) {
+        return roster(companyId).shifts.stream()
+                .filter(shift -> shift.getUserId().equals(userId) && !shift.getDate().isBefore(from))
+                .toList();
+    }
+
+    public List<ShiftListDTO> excludingUser(Long companyId, Long userId) {
+        return roster(companyId).shifts.stream().filter(shift -> !shift.getUserId().equals(userId)).toList();
+    }
+
+    public List<ShiftListDTO> futureExcludingUser(Long companyId, Long userId, LocalDate from) {
+        return roster(companyId).shifts.stream()
+                .filter(shift -> !shift.getUserId().equals(userId) && !shift.getDate().isBefore(from))
+                .toList();
+    }
+
+    public List<ShiftTemplateDTO> templates(Long companyId) {
+        return roster(companyId).templates;
+    }
+
+    private Entry roster(Long companyId) {
+        long version = version(companyId);  // luetaan ennen latausta: latauksen aikana tullut muutos vanhentaa tuloksen
+        synchronized (entries) {
+            Entry entry = entries.get(companyId);
+            if (entry != null && entry.version == version) {
+                hits.increment();
+                return entry;
+            }
+        }
+        misses.increment();
+        List<ShiftListDTO> shifts = shiftRepository.findAllByCompanyId(companyId).stream()
+                .sorted(Comparator.comparing(ShiftListDTO::getDate))
+                .toList();
+        List<ShiftTemplateDTO> templates = List.copyOf(shiftTemplateRepository.findTemplateDTOsByCompanyId(companyId));
+        Entry loaded = new Entry(version, shifts, templates);
+        synchronized (entries) {
+            Entry previous = entries.put(companyId, loaded);
+            cachedRows += loaded.rows() - (previous != null ? previous.rows() : 0);
+            Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+            while (cachedRows > maxRows && eldest.hasNext()) {
+                Map.Entry<Long, Entry> evicted = eldest.next();
+                if (!evicted.getKey().equals(companyId)) {  // juuri ladattu jää, vaikka olisi yksin liian iso
+                    cachedRows -= evicted.getValue().rows();
+                    eldest.remove();
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private void bump(Long companyId) {
+        versions.computeIfAbsent(companyId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static class Entry {
+        private final long version;
+        private final List<ShiftListDTO> shifts;  // muuttumaton, jaetaan kaikille lukijoille
+        private final List<ShiftTemplateDTO> templates;
+
+        private Entry(long version, List<ShiftListDTO> shifts, List<ShiftTemplateDTO> templates) {
+            this.version = version;
+            this.shifts = shifts;
+            this.templates = templates;
+        }
+
+        private int rows() {
+            return shifts.size() + templates.size();
+        }
+    }
+}
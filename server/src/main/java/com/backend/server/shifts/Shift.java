@@ -9,8 +9,10 @@ import com.backend.server.users.User;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -24,14 +26,18 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "shifts")
+@Table(name = "shifts", indexes = {
+    // delta sync (/api/sync/shifts), muutokset change_seq järjestyksessä
+    @Index(name = "idx_shifts_company_change_seq", columnList = "company_id, change_seq"),
+    @Index(name = "idx_shifts_user_change_seq", columnList = "user_id, change_seq")
+})
 public class Shift {
 
     @Id
     @GeneratedValue
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)  // listaukset hakevat nimet projektioilla, ks. ShiftRepository
     @JoinColumn(name = "user_id", nullable=false, referencedColumnName = "id")  // KÄYTTÄJÄ JOLLE VUORO ON MÄÄRÄTTY
     private User user;
 
@@ -48,10 +54,14 @@ public class Shift {
 
     private String description;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id", nullable=false, referencedColumnName = "id")  // KÄYTTÄJÄN TYÖNANTAJA
     private Company company;
 
+    // muutosjärjestys, kanta asettaa triggerillä jokaisessa insertissä ja updatessa. ks. ChangeSequenceMigration
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
     
     
 }
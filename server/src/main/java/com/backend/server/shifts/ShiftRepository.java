@@ -1,48 +1,95 @@
 package com.backend.server.shifts;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.backend.server.shifts.DTO.ShiftListDTO;
+import com.backend.server.sync.DTO.ShiftChangeDTO;
+
+import jakarta.persistence.QueryHint;
+
 
 @Repository
 public interface ShiftRepository extends JpaRepository<Shift, Long>{
 
+    // listausten projektio: vain ShiftListDTO:n sarakkeet yhdellä joinilla, ei User/Company entityjä per rivi
+    String SHIFT_LIST_DTO = "SELECT new com.backend.server.shifts.DTO.ShiftListDTO("
+            + "s.id, u.id, u.firstName, u.lastName, COALESCE(s.breaksTotal, 0), s.date, s.startTime, s.endTime, "
+            + "COALESCE(s.description, ''), c.id, c.companyName) "
+            + "FROM Shift s JOIN s.user u JOIN s.company c ";
+
+    // delta sync: muuttuneet vuorot muutosnumeron mukaan
+    String SHIFT_CHANGE_DTO = "SELECT new com.backend.server.sync.DTO.ShiftChangeDTO("
+            + "s.changeSeq, s.id, u.id, u.firstName, u.lastName, COALESCE(s.breaksTotal, 0), s.date, s.startTime, s.endTime, "
+            + "COALESCE(s.description, ''), c.id, c.companyName) "
+            + "FROM Shift s JOIN s.user u JOIN s.company c ";
+
     List<Shift> findAllByUserId(Long userId);
 
+    // työvuorolistan olemassa olevat vuorot yhdellä kyselyllä, käyttäjät x päivät (suodatus parin mukaan kutsujalla)
+    @Query("SELECT s FROM Shift s WHERE s.company.id = :companyId AND s.user.id IN :userIds AND s.date IN :dates")
+    List<Shift> findAllForRoster(@Param("companyId") Long companyId, @Param("userIds") Collection<Long> userIds,
+                                 @Param("dates") Collection<LocalDate> dates);
+
+    // companyn (tai yhden käyttäjän, userId ei null) vuorot joiden muutosnumero on cursorin jälkeen, määrä Pageablesta
+    @Query(SHIFT_CHANGE_DTO + "WHERE c.id = :companyId AND (:userId IS NULL OR u.id = :userId) AND s.changeSeq > :since"
+            + " ORDER BY s.changeSeq")
+    List<ShiftChangeDTO> findChangesSince(@Param("companyId") Long companyId, @Param("userId") Long userId,
+                                          @Param("since") long since, Pageable pageable);
+
     @Query(value = "SELECT * FROM shifts WHERE user_id = :userId ORDER BY date DESC LIMIT :limit", nativeQuery = true)
     List<Shift> findLastShiftsForUser(Long userId, int limit);
 
-    @Query("SELECT s FROM Shift s JOIN s.user u WHERE u.company.id = :companyId")
-    List<Shift> findAllByCompanyId(Long companyId);
+    // käyttäjän kaikki vuorot
+    @Query(SHIFT_LIST_DTO + "WHERE u.id = :userId")
+    List<ShiftListDTO> findShiftListByUserId(@Param("userId") Long userId);
+
+    @Query(SHIFT_LIST_DTO + "WHERE u.company.id = :companyId")
+    List<ShiftListDTO> findAllByCompanyId(@Param("companyId") Long companyId);
+
+    // streamatut versiot ?stream=true listauksille, kursori haetaan 500 rivi kerrallaan. vaatii avoimen transaktion
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(SHIFT_LIST_DTO + "WHERE u.company.id = :companyId")
+    Stream<ShiftListDTO> streamAllByCompanyId(@Param("companyId") Long companyId);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(SHIFT_LIST_DTO + "WHERE u.company.id = :companyId AND u.id != :userId")
+    Stream<ShiftListDTO> streamAllByUserExcludingUserNoDate(@Param("userId") Long userId, @Param("companyId") Long companyId);
 
     // kaikki companyn tulevat vuorot
-    @Query(value = "SELECT * FROM shifts WHERE user_id IN (SELECT id FROM users WHERE company_id = :companyId) AND date >= :date ORDER BY date ASC", nativeQuery = true)
-    List<Shift> findAllFutureShiftsByCompanyId(@Param("companyId") Long companyId, @Param("date") LocalDate date);
+    @Query(SHIFT_LIST_DTO + "WHERE u.company.id = :companyId AND s.date >= :date ORDER BY s.date ASC")
+    List<ShiftListDTO> findAllFutureShiftsByCompanyId(@Param("companyId") Long companyId, @Param("date") LocalDate date);
 
     @Query(value = "SELECT * FROM shifts WHERE user_id = :userId AND date = :date AND user_id IN (SELECT id FROM users WHERE company_id = :companyId) ORDER BY date DESC LIMIT 1", nativeQuery = true)
     Optional<Shift> findByUserAndDate(@Param("userId") Long userId, @Param("date") LocalDate date, @Param("companyId") Long companyId);
 
     // kaikki käyttäjän tänään ja tulevat vuorot
-    @Query(value = "SELECT * FROM shifts WHERE user_id = :userId AND date >= :date AND user_id IN (SELECT id FROM users WHERE company_id = :companyId) ORDER BY date ASC", nativeQuery = true)
-    List<Shift> findFutureShiftsByUserId(@Param("userId") Long userId, @Param("date") LocalDate date, @Param("companyId") Long companyId);
+    @Query(SHIFT_LIST_DTO + "WHERE u.id = :userId AND s.date >= :date AND u.company.id = :companyId ORDER BY s.date ASC")
+    List<ShiftListDTO> findFutureShiftsByUserId(@Param("userId") Long userId, @Param("date") LocalDate date, @Param("companyId") Long companyId);
 
     // poista vanhentuneet shiftit cutoff päivän jälkeen, companyId perusteella, nativequeryllä
+    @Modifying
     @Query(value = "DELETE FROM shifts WHERE date < :date AND user_id IN (SELECT id FROM users WHERE company_id = :companyId)", nativeQuery = true)
     void deleteOldShifts(@Param("date") LocalDate date, @Param("companyId") Long companyId);
 
     // hae kaikki companyn käyttäjien tulevat vuorot, paitsi omat
-    @Query("SELECT s FROM Shift s JOIN s.user u WHERE u.company.id = :companyId AND u.id != :userId AND s.date >= :date")
-    List<Shift> findAllByUserExcludingUser(@Param("userId") Long userId, @Param("companyId") Long companyId, @Param("date") LocalDate date);
+    @Query(SHIFT_LIST_DTO + "WHERE u.company.id = :companyId AND u.id != :userId AND s.date >= :date")
+    List<ShiftListDTO> findAllByUserExcludingUser(@Param("userId") Long userId, @Param("companyId") Long companyId, @Param("date") LocalDate date);
 
     // hae kaikki companyn käyttäjien menneet ja tulevat vuorot, paitsi omat
-    @Query("SELECT s FROM Shift s JOIN s.user u WHERE u.company.id = :companyId AND u.id != :userId")
-    List<Shift> findAllByUserExcludingUserNoDate(@Param("userId") Long userId, @Param("companyId") Long companyId);
+    @Query(SHIFT_LIST_DTO + "WHERE u.company.id = :companyId AND u.id != :userId")
+    List<ShiftListDTO> findAllByUserExcludingUserNoDate(@Param("userId") Long userId, @Param("companyId") Long companyId);
     
 
     
@@ -1,28 +1,40 @@
 package com.backend.server.shifts;
 
 
-import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.backend.server.companies.Company;
 import com.backend.server.reportedhours.DTO.WorkDayDTO;
-import com.backend.server.security.SecurityService;
+import com.backend.server.security.AuthContext;
+import com.backend.server.security.AuthPrincipal;
+import com.backend.server.security.RequireRole;
+import com.backend.server.shifts.DTO.RosterEntryDTO;
 import com.backend.server.shifts.DTO.ShiftDTO;
 import com.backend.server.shifts.DTO.ShiftListDTO;
+import com.backend.server.shifts.DTO.ShiftTemplateDTO;
 import com.backend.server.users.User;
 import com.backend.server.users.UserRepository;
+import com.backend.server.utility.ChangeVersions;
+import com.backend.server.utility.Role;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -33,17 +45,17 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping("/api/shifts")
 public class ShiftRestController {
     private final ShiftService shiftService;
-    private final SecurityService securityService;
+    private final ShiftTemplateService shiftTemplateService;
     private final UserRepository userRepository;
+    private final AuthContext authContext;
+    private final ChangeVersions changeVersions;
 
+    @RequireRole(Role.SUPERVISOR)
     @PutMapping("/update")  // saa määränneen tiedot tokenista, requestissa oltava työntekijän tiedot, ketä koskee, katso WorkDayDTO
-    public ResponseEntity<?> assignShift(@Valid @RequestBody WorkDayDTO workDayDTO, @RequestHeader("Authorization")String token){
+    public ResponseEntity<?> assignShift(@Valid @RequestBody WorkDayDTO workDayDTO){
         try {
             // tarkista käyttäjä ja rooli jotta oikeus käyttää, heittää illegalargumentexceptionin jos ei onnistu
-            User supervisor = securityService.getUserFromToken(token);
-            if(supervisor.getRole() == null || !securityService.isSuperVisor(supervisor.getRole())){
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
-            }
+            User supervisor = authContext.getUser();
             // tarkista että työntekijä on olemassa
             User worker = userRepository.findById(workDayDTO.getId()).orElse(null);
             if(worker == null){
@@ -77,14 +89,125 @@ public class ShiftRestController {
         }
     }
 
+    // koko työvuorolista kerralla, esim. viikko kaikille työntekijöille. body: lista RosterEntryDTO rivejä
+    // vastaus: tulos per rivi (created / updated / failed), vain failed rivit tarvitsee korjata ja lähettää uudelleen
+    @RequireRole(Role.SUPERVISOR)
+    @PutMapping("/roster")
+    public ResponseEntity<?> assignRoster(@RequestBody List<RosterEntryDTO> entries){
+        Company company;
+        try {
+            // company tokenista, rooli tarkistettu jo @RequireRole annotaatiolla
+            company = authContext.getUser().getCompany();
+        }
+        catch(IllegalArgumentException e){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+        }
+        try {
+            return ResponseEntity.ok(shiftService.assignRoster(company, entries));
+        }
+        catch(Exception e){
+            // tyhjä tai liian iso pyyntö, tai tallennus epäonnistui (koko lista peruttu)
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // toistuvat vuorot, ks. INFO/VuorojenMaaraysOhjeet.md
+    @RequireRole(Role.SUPERVISOR)
+    @GetMapping("/templates")
+    public ResponseEntity<?> getShiftTemplates(){
+        try {
+            AuthPrincipal user = authContext.getPrincipal();
+            return ResponseEntity.ok(shiftTemplateService.getTemplates(user.getCompanyId()));
+        }
+        catch(IllegalArgumentException e){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+        }
+        catch(Exception e){
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error");
+        }
+    }
+
+    @RequireRole(Role.SUPERVISOR)
+    @PostMapping("/templates")
+    public ResponseEntity<?> createShiftTemplate(@RequestBody ShiftTemplateDTO templateDTO){
+        Company company;
+        try {
+            company = authContext.getUser().getCompany();
+        }
+        catch(IllegalArgumentException e){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+        }
+        try {
+            return ResponseEntity.ok(shiftTemplateService.createTemplate(company, templateDTO));
+        }
+        catch(Exception e){
+            // puuttuva kenttä, väärä työntekijä tai virheellinen voimassaolo
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @RequireRole(Role.SUPERVISOR)
+    @PutMapping("/templates/{templateId}")
+    public ResponseEntity<?> updateShiftTemplate(@PathVariable Long templateId, @RequestBody ShiftTemplateDTO templateDTO){
+        Company company;
+        try {
+            company = authContext.getUser().getCompany();
+        }
+        catch(IllegalArgumentException e){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+        }
+        try {
+            return ResponseEntity.ok(shiftTemplateService.updateTemplate(company, templateId, templateDTO));
+        }
+        catch(Exception e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @RequireRole(Role.SUPERVISOR)
+    @DeleteMapping("/templates/{templateId}")
+    public ResponseEntity<?> deleteShiftTemplate(@PathVariable Long templateId){
+        Company company;
+        try {
+            company = authContext.getUser().getCompany();
+        }
+        catch(IllegalArgumentException e){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+        }
+        try {
+            shiftTemplateService.deleteTemplate(company, templateId);
+            return ResponseEntity.ok("Template removed !! " + templateId);
+        }
+        catch(Exception e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // toistuvien vuorojen päivät tallennetuiksi vuoroiksi ?to= päivään asti, templateId:llä vain yksi pohja
+    @RequireRole(Role.SUPERVISOR)
+    @PostMapping("/templates/materialize")
+    public ResponseEntity<?> materializeShiftTemplates(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                       @RequestParam(required = false) Long templateId){
+        Company company;
+        try {
+            company = authContext.getUser().getCompany();
+        }
+        catch(IllegalArgumentException e){
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+        }
+        try {
+            return ResponseEntity.ok(Map.of("created", shiftTemplateService.materialize(company, templateId, to)));
+        }
+        catch(Exception e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @RequireRole(Role.SUPERVISOR)
     @DeleteMapping("/delete/{shiftID}")
-    public ResponseEntity<?> deleteAssignedShift(@RequestHeader("Authorization") String token, @PathVariable Long shiftID){
+    public ResponseEntity<?> deleteAssignedShift(@PathVariable Long shiftID){
         try {
-            // varmenna token ja rooli
-            User supervisor = securityService.getUserFromToken(token);
-            if(!securityService.isSuperVisor(supervisor.getRole())){
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
-            }
+            // token ja rooli tarkistettu jo @RequireRole annotaatiolla
             // poista vuoro
             String response = shiftService.deleteShift(shiftID);
             return ResponseEntity.ok(response);
@@ -97,43 +220,22 @@ public class ShiftRestController {
         }
     }
 
+    @RequireRole
     @GetMapping("/personal")
-    public ResponseEntity<?> getPersonalAssignedShifts(@RequestHeader("Authorization")String token){
+    public ResponseEntity<?> getPersonalAssignedShifts(WebRequest request){
         try {
-            // käyttäjä tokenista
-            User user = securityService.getUserFromToken(token);
-            // hae käyttäjälle määrätyt vuorot
-            List<Shift> assignedshifts = shiftService.getFutureShiftsById(user.getId());
-            List<ShiftListDTO> shiftListDTOs = new ArrayList<>();
-            for (Shift assignedshift : assignedshifts){
-                ShiftListDTO shiftListDTO = new ShiftListDTO();
-                shiftListDTO.setId(assignedshift.getId());
-                shiftListDTO.setUserId(assignedshift.getUser().getId());
-                shiftListDTO.setFirstName(assignedshift.getUser().getFirstName());
-                shiftListDTO.setLastName(assignedshift.getUser().getLastName());
-                shiftListDTO.setStartTime(assignedshift.getStartTime());
-                shiftListDTO.setEndTime(assignedshift.getEndTime());
-                shiftListDTO.setCompanyId(assignedshift.getCompany().getId());
-                shiftListDTO.setCompanyName(assignedshift.getCompany().getCompanyName());
-                // null check breaks
-                if(assignedshift.getBreaksTotal() == null){
-                    shiftListDTO.setBreaksTotal(0);
-                }
-                else{
-                    shiftListDTO.setBreaksTotal(assignedshift.getBreaksTotal());
-                }
-                // null check description 
-                if(assignedshift.getDescription() == null){
-                    shiftListDTO.setDescription("");
-                }
-                else{
-                    shiftListDTO.setDescription(assignedshift.getDescription());
-                }
-                shiftListDTO.setDate(assignedshift.getDate());
-                shiftListDTOs.add(shiftListDTO);
+            // käyttäjä tokenista, välimuistista jos mahdollista
+            AuthPrincipal user = authContext.getPrincipal();
+            // ETag companyn vuorolistan versiosta, päivä mukana koska "tulevat" vaihtuu keskiyöllä
+            String etag = changeVersions.etag("sp", user.getUserId(), shiftService.getRosterVersion(user.getCompanyId()),
+                    LocalDate.now().toEpochDay());
+            if (request.checkNotModified(etag)) {
+                return ChangeVersions.notModified(etag);
             }
+            // hae käyttäjälle määrätyt vuorot
+            List<ShiftListDTO> shiftListDTOs = shiftService.getFutureShiftsById(user.getUserId(), user.getCompanyId());
 
-            return ResponseEntity.ok(shiftListDTOs);
+            return ChangeVersions.ok(etag).body(shiftListDTOs);
             
         }
         catch(IllegalArgumentException e){
@@ -144,39 +246,14 @@ public class ShiftRestController {
         }
     }
 
+    @RequireRole
     @GetMapping("/personal/all")
-    public ResponseEntity<?> getAllPersonalAssignedShifts(@RequestHeader("Authorization")String token){
+    public ResponseEntity<?> getAllPersonalAssignedShifts(){
         try {
-            // käyttäjä tokenista
-            User user = securityService.getUserFromToken(token);
+            // käyttäjä tokenista, välimuistista jos mahdollista
+            AuthPrincipal user = authContext.getPrincipal();
             // hae käyttäjälle määrätyt vuorot
-            List<Shift> assignedshifts = shiftService.getShiftsById(user.getId());
-            List<ShiftListDTO> shiftListDTOs = new ArrayList<>();
-            for (Shift assignedshift : assignedshifts){
-                ShiftListDTO shiftListDTO = new ShiftListDTO();
-                shiftListDTO.setId(assignedshift.getId());
-                shiftListDTO.setUserId(assignedshift.getUser().getId());
-                shiftListDTO.setFirstName(assignedshift.getUser().getFirstName());
-                shiftListDTO.setLastName(assignedshift.getUser().getLastName());
-                shiftListDTO.setStartTime(assignedshift.getStartTime());
-                shiftListDTO.setEndTime(assignedshift.getEndTime());
-                // null check breaks
-                if(assignedshift.getBreaksTotal() == null){
-                    shiftListDTO.setBreaksTotal(0);
-                }
-                else{
-                    shiftListDTO.setBreaksTotal(assignedshift.getBreaksTotal());
-                }
-                // null check description
-                if(assignedshift.getDescription() == null){
-                    shiftListDTO.setDescription("");
-                }
-                else{
-                    shiftListDTO.setDescription(assignedshift.getDescription());
-                }
-                shiftListDTO.setDate(assignedshift.getDate());
-                shiftListDTOs.add(shiftListDTO);
-            }
+            List<ShiftListDTO> shiftListDTOs = shiftService.getShiftsById(user.getUserId());
 
             return ResponseEntity.ok(shiftListDTOs);
         }
@@ -188,49 +265,27 @@ public class ShiftRestController {
         }
     }
 
+    @RequireRole
     @GetMapping("/everyone") // companyn kaikkien työntekijöiden kaikki TULEVAT määrätyt vuorot
-    public ResponseEntity<?> getAllFutureAssignedShifts(@RequestHeader("Authorization") String token){
+    public ResponseEntity<?> getAllFutureAssignedShifts(WebRequest request){
         try {
-            // varmenna token, ei rajata roolilla
-            User user= securityService.getUserFromToken(token);
+            // varmenna token, ei rajata roolilla, välimuistista jos mahdollista
+            AuthPrincipal user = authContext.getPrincipal();
            
             // hae käyttäjän company
-            Company company = user.getCompany();
-            if (company == null){
+            Long companyId = user.getCompanyId();
+            if (companyId == null){
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
             }
-            // hae kaikki companyn määrätyt vuorot
-            List<Shift> assignedshifts = shiftService.getAllFutureShiftsByCompanyId(company.getId());
-            List<ShiftListDTO> shiftListDTOs = new ArrayList<>();
-            for (Shift assignedshift : assignedshifts){
-                ShiftListDTO shiftListDTO = new ShiftListDTO();
-                shiftListDTO.setId(assignedshift.getId());
-                shiftListDTO.setUserId(assignedshift.getUser().getId());
-                shiftListDTO.setFirstName(assignedshift.getUser().getFirstName());
-                shiftListDTO.setLastName(assignedshift.getUser().getLastName());
-                shiftListDTO.setStartTime(assignedshift.getStartTime());
-                shiftListDTO.setEndTime(assignedshift.getEndTime());
-                // null check breaks
-                if(assignedshift.getBreaksTotal() == null){
-                    shiftListDTO.setBreaksTotal(0);
-                }
-                else{
-                    shiftListDTO.setBreaksTotal(assignedshift.getBreaksTotal());
-                }
-                // null check description
-                if(assignedshift.getDescription() == null){
-                    shiftListDTO.setDescription("");
-                }
-                else{
-                    shiftListDTO.setDescription(assignedshift.getDescription());
-                }
-                shiftListDTO.setDate(assignedshift.getDate());
-                shiftListDTO.setCompanyId(company.getId());
-                shiftListDTO.setCompanyName(company.getCompanyName());
-                shiftListDTOs.add(shiftListDTO);
+            String etag = changeVersions.etag("se", companyId, shiftService.getRosterVersion(companyId),
+                    LocalDate.now().toEpochDay());
+            if (request.checkNotModified(etag)) {
+                return ChangeVersions.notModified(etag);
             }
+            // hae kaikki companyn määrätyt vuorot
+            List<ShiftListDTO> shiftListDTOs = shiftService.getAllFutureShiftsByCompanyId(companyId);
 
-            return ResponseEntity.ok(shiftListDTOs);
+            return ChangeVersions.ok(etag).body(shiftListDTOs);
         }
         catch(IllegalArgumentException e){
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
@@ -240,47 +295,25 @@ public class ShiftRestController {
         }
     }
 
+    @RequireRole
     @GetMapping("/everyone/all") // companyn kaikkien työntekijöiden kaikki  määrätyt vuorot
-    public ResponseEntity<?> getAllAssignedShifts(@RequestHeader("Authorization") String token){
+    public ResponseEntity<?> getAllAssignedShifts(@RequestParam(defaultValue = "false") boolean stream){
         try {
-            // varmenna token, ei rajata roolilla
-            User user= securityService.getUserFromToken(token);
+            // varmenna token, ei rajata roolilla, välimuistista jos mahdollista
+            AuthPrincipal user = authContext.getPrincipal();
            
             // hae käyttäjän company
-            Company company = user.getCompany();
-            if (company == null){
+            Long companyId = user.getCompanyId();
+            if (companyId == null){
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
             }
-            // hae kaikki companyn määrätyt vuorot
-            List<Shift> assignedshifts = shiftService.getAllShiftsByCompanyId(company.getId());
-            List<ShiftListDTO> shiftListDTOs = new ArrayList<>();
-            for (Shift assignedshift : assignedshifts){
-                ShiftListDTO shiftListDTO = new ShiftListDTO();
-                shiftListDTO.setId(assignedshift.getId());
-                shiftListDTO.setUserId(assignedshift.getUser().getId());
-                shiftListDTO.setFirstName(assignedshift.getUser().getFirstName());
-                shiftListDTO.setLastName(assignedshift.getUser().getLastName());
-                shiftListDTO.setStartTime(assignedshift.getStartTime());
-                shiftListDTO.setEndTime(assignedshift.getEndTime());
-                // null check breaks
-                if(assignedshift.getBreaksTotal() == null){
-                    shiftListDTO.setBreaksTotal(0);
-                }
-                else{
-                    shiftListDTO.setBreaksTotal(assignedshift.getBreaksTotal());
-                }
-                // null check description
-                if(assignedshift.getDescription() == null){
-                    shiftListDTO.setDescription("");
-                }
-                else{
-                    shiftListDTO.setDescription(assignedshift.getDescription());
-                }
-                shiftListDTO.setDate(assignedshift.getDate());
-                shiftListDTO.setCompanyId(company.getId());
-                shiftListDTO.setCompanyName(company.getCompanyName());
-                shiftListDTOs.add(shiftListDTO);
+            // stream=true: rivit kirjoitetaan responseen sitä mukaa kun ne luetaan kannasta, muisti ei kasva companyn koon mukana
+            if (stream) {
+                StreamingResponseBody body = out -> shiftService.writeAllShiftsByCompanyId(companyId, out);
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
             }
+            // hae kaikki companyn määrätyt vuorot
+            List<ShiftListDTO> shiftListDTOs = shiftService.getAllShiftsByCompanyId(companyId);
 
             return ResponseEntity.ok(shiftListDTOs);
         }
@@ -292,47 +325,20 @@ public class ShiftRestController {
         }
     }
 
+    @RequireRole
     @GetMapping("/others") // companyn kaikkien työntekijöiden kaikki TULEVAT määrätyt vuorot, paitsi käyttäjän omat
-    public ResponseEntity<?> getOthersFutureAssignedShifts(@RequestHeader("Authorization") String token){
+    public ResponseEntity<?> getOthersFutureAssignedShifts(){
         try {
-            // varmenna token, ei rajata roolilla
-            User user= securityService.getUserFromToken(token);
+            // varmenna token, ei rajata roolilla, välimuistista jos mahdollista
+            AuthPrincipal user = authContext.getPrincipal();
            
             // hae käyttäjän company
-            Company company = user.getCompany();
-            if (company == null){
+            Long companyId = user.getCompanyId();
+            if (companyId == null){
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
             }
             // hae kaikki companyn määrätyt vuorot
-            List<Shift> assignedshifts = shiftService.getCompanyFutureShiftsExcludingUser(user);
-            List<ShiftListDTO> shiftListDTOs = new ArrayList<>();
-            for (Shift assignedshift : assignedshifts){
-                ShiftListDTO shiftListDTO = new ShiftListDTO();
-                shiftListDTO.setId(assignedshift.getId());
-                shiftListDTO.setUserId(assignedshift.getUser().getId());
-                shiftListDTO.setFirstName(assignedshift.getUser().getFirstName());
-                shiftListDTO.setLastName(assignedshift.getUser().getLastName());
-                shiftListDTO.setStartTime(assignedshift.getStartTime());
-                shiftListDTO.setEndTime(assignedshift.getEndTime());
-                // null check breaks
-                if(assignedshift.getBreaksTotal() == null){
-                    shiftListDTO.setBreaksTotal(0);
-                }
-                else{
-                    shiftListDTO.setBreaksTotal(assignedshift.getBreaksTotal());
-                }
-                // null check description
-                if(assignedshift.getDescription() == null){
-                    shiftListDTO.setDescription("");
-                }
-                else{
-                    shiftListDTO.setDescription(assignedshift.getDescription());
-                }
-                shiftListDTO.setDate(assignedshift.getDate());
-                shiftListDTO.setCompanyId(company.getId());
-                shiftListDTO.setCompanyName(company.getCompanyName());
-                shiftListDTOs.add(shiftListDTO);
-            }
+            List<ShiftListDTO> shiftListDTOs = shiftService.getCompanyFutureShiftsExcludingUser(user.getUserId(), companyId);
 
             return ResponseEntity.ok(shiftListDTOs);
         }
@@ -344,47 +350,26 @@ public class ShiftRestController {
         }
     }
 
+    @RequireRole
     @GetMapping("/others/all") // companyn kaikkien työntekijöiden kaikki määrätyt vuorot, paitsi käyttäjän omat
-    public ResponseEntity<?> getOthersAssignedShifts(@RequestHeader("Authorization") String token){
+    public ResponseEntity<?> getOthersAssignedShifts(@RequestParam(defaultValue = "false") boolean stream){
         try {
-            // varmenna token, ei rajata roolilla
-            User user= securityService.getUserFromToken(token);
+            // varmenna token, ei rajata roolilla, välimuistista jos mahdollista
+            AuthPrincipal user = authContext.getPrincipal();
            
             // hae käyttäjän company
-            Company company = user.getCompany();
-            if (company == null){
+            Long companyId = user.getCompanyId();
+            if (companyId == null){
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
             }
-            // hae kaikki companyn määrätyt vuorot
-            List<Shift> assignedshifts = shiftService.getAllCompanyShiftsExcludingUserNoDate(user);
-            List<ShiftListDTO> shiftListDTOs = new ArrayList<>();
-            for (Shift assignedshift : assignedshifts){
-                ShiftListDTO shiftListDTO = new ShiftListDTO();
-                shiftListDTO.setId(assignedshift.getId());
-                shiftListDTO.setUserId(assignedshift.getUser().getId());
-                shiftListDTO.setFirstName(assignedshift.getUser().getFirstName());
-                shiftListDTO.setLastName(assignedshift.getUser().getLastName());
-                shiftListDTO.setStartTime(assignedshift.getStartTime());
-                shiftListDTO.setEndTime(assignedshift.getEndTime());
-                // null check breaks
-                if(assignedshift.getBreaksTotal() == null){
-                    shiftListDTO.setBreaksTotal(0);
-                }
-                else{
-                    shiftListDTO.setBreaksTotal(assignedshift.getBreaksTotal());
-                }
-                // null check description
-                if(assignedshift.getDescription() == null){
-                    shiftListDTO.setDescription("");
-                }
-                else{
-                    shiftListDTO.setDescription(assignedshift.getDescription());
-                }
-                shiftListDTO.setDate(assignedshift.getDate());
-                shiftListDTO.setCompanyId(company.getId());
-                shiftListDTO.setCompanyName(company.getCompanyName());
-                shiftListDTOs.add(shiftListDTO);
+            // stream=true: kuten /everyone/all
+            if (stream) {
+                Long userId = user.getUserId();
+                StreamingResponseBody body = out -> shiftService.writeAllCompanyShiftsExcludingUserNoDate(userId, companyId, out);
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
             }
+            // hae kaikki companyn määrätyt vuorot
+            List<ShiftListDTO> shiftListDTOs = shiftService.getAllCompanyShiftsExcludingUserNoDate(user.getUserId(), companyId);
 
             return ResponseEntity.ok(shiftListDTOs);
         }
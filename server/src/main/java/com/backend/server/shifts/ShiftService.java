@@ -1,16 +1,31 @@
 package com.backend.server.shifts;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.backend.server.companies.Company;
+import com.backend.server.events.CompanyEventHub;
+import com.backend.server.shifts.DTO.RosterEntryDTO;
+import com.backend.server.shifts.DTO.RosterResultDTO;
 import com.backend.server.shifts.DTO.ShiftDTO;
+import com.backend.server.shifts.DTO.ShiftListDTO;
 import com.backend.server.users.User;
 import com.backend.server.users.UserRepository;
+import com.backend.server.utility.JsonArrayWriter;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +35,13 @@ import lombok.RequiredArgsConstructor;
 public class ShiftService {
         private final ShiftRepository shiftRepository;
         private final UserRepository userRepository;
+        private final JsonArrayWriter jsonArrayWriter;
+        private final CompanyEventHub companyEventHub;
+        private final RosterCache rosterCache;
+        private final ShiftTemplateService shiftTemplateService;
+
+        @Value("${shifts.rosterMaxSize}")
+        private int rosterMaxSize;
 
         public Shift saveShift(Shift shift) {
                 return shiftRepository.save(shift);
@@ -29,20 +51,35 @@ public class ShiftService {
                 return shiftRepository.findById(id).orElse(null);
         }
 
+        @Transactional
         public String deleteShift(Long id) {
-                shiftRepository.deleteById(id);
+                Shift shift = shiftRepository.findById(id).orElse(null);
+                if (shift != null) {
+                        shiftRepository.delete(shift);
+                        rosterCache.invalidate(shift.getCompany().getId());
+                        // companyn /api/events clienteille, lähtee commitin jälkeen
+                        companyEventHub.publish(shift.getCompany().getId(), "shift-deleted",
+                                Map.of("id", id, "userId", shift.getUser().getId(), "date", shift.getDate()));
+                }
                 return "Shift removed !! " + id;
         }
 
-        public List<Shift> getShiftsById(Long id) {
-                return shiftRepository.findAllByUserId(id);
+        public List<ShiftListDTO> getShiftsById(Long id) {
+                return shiftRepository.findShiftListByUserId(id);
         }
 
         @Transactional
-        public List<Shift> getFutureShiftsById(Long id) {
-                LocalDate date = LocalDate.now();
+        public List<ShiftListDTO> getFutureShiftsById(Long id) {
                 Long companyId = userRepository.findById(id).get().getCompany().getId();
-                return shiftRepository.findFutureShiftsByUserId(id, date, companyId);
+                return getFutureShiftsById(id, companyId);
+        }
+
+        // overload kun company id on jo tiedossa (AuthPrincipal), säästää käyttäjähaun.
+        // RosterCachesta kuten companyn listaukset, mukana toistuvat vuorot
+        public List<ShiftListDTO> getFutureShiftsById(Long id, Long companyId) {
+                LocalDate date = LocalDate.now();
+                return shiftTemplateService.withTemplates(companyId, rosterCache.futureForUser(companyId, id, date), date,
+                        userId -> userId == id);
         }
 
         @Transactional
@@ -76,6 +113,12 @@ public class ShiftService {
                 
                 //tallennus 
                 shiftRepository.save(shift);
+                rosterCache.invalidate(company.getId());
+                // companyn /api/events clienteille samassa muodossa kuin /api/shifts/everyone rivit
+                companyEventHub.publish(company.getId(), "shift-assigned", new ShiftListDTO(shift.getId(), user.getId(),
+                        user.getFirstName(), user.getLastName(), shift.getBreaksTotal() != null ? shift.getBreaksTotal() : 0,
+                        shift.getDate(), shift.getStartTime(), shift.getEndTime(),
+                        shift.getDescription() != null ? shift.getDescription() : "", company.getId(), company.getCompanyName()));
                 // palautus
                 ShiftDTO shiftDTO = new ShiftDTO();
                 shiftDTO.setDate(shift.getDate());
@@ -84,19 +127,132 @@ public class ShiftService {
                 return shiftDTO;
         }
 
+        // koko työvuorolista (monta työntekijää x päivää) yhdessä transaktiossa: kohteiden tarkistus yhdellä kyselyllä,
+        // olemassa olevat vuorot yhdellä kyselyllä ja tallennus JDBC batcheina. Virheelliset rivit merkitään failed,
+        // muut tallennetaan. Vuorolistan versio ja /api/events ilmoitus kerran koko listasta
         @Transactional
-        public List<Shift> getAllShiftsByCompanyId(Long id){
-                return shiftRepository.findAllByCompanyId(id);
+        public List<RosterResultDTO> assignRoster(Company company, List<RosterEntryDTO> entries){
+                if (entries == null || entries.isEmpty()) {
+                        throw new IllegalArgumentException("No shifts");
+                }
+                if (entries.size() > rosterMaxSize) {
+                        throw new IllegalArgumentException("Too many shifts, max " + rosterMaxSize);
+                }
+
+                Set<Long> userIds = new HashSet<>();
+                for (RosterEntryDTO entry : entries) {
+                        if (entry != null && entry.getUserId() != null) {
+                                userIds.add(entry.getUserId());
+                        }
+                }
+                Map<Long, User> workers = new HashMap<>();
+                if (!userIds.isEmpty()) {
+                        for (User worker : userRepository.findAllByCompanyIdAndIdIn(company.getId(), userIds)) {
+                                workers.put(worker.getId(), worker);
+                        }
+                }
+
+                List<RosterResultDTO> results = new ArrayList<>();
+                Map<String, Integer> validByKey = new LinkedHashMap<>();  // "userId:date" -> rivin index
+                for (int i = 0; i < entries.size(); i++) {
+                        RosterEntryDTO entry = entries.get(i);
+                        String error = null;
+                        if (entry == null || entry.getUserId() == null) {
+                                error = "User missing";
+                        } else if (entry.getDate() == null) {
+                                error = "Date missing";
+                        } else if (entry.getStartTime() == null) {
+                                error = "Start time missing";
+                        } else if (entry.getDescription() != null && entry.getDescription().length() > 255) {
+                                error = "Description can't be longer than 255 characters";
+                        } else if (!workers.containsKey(entry.getUserId())) {
+                                error = "Worker not found";  // ei olemassa tai toisen companyn työntekijä
+                        } else if (validByKey.putIfAbsent(entry.getUserId() + ":" + entry.getDate(), i) != null) {
+                                error = "Duplicate shift in roster";
+                        }
+                        results.add(new RosterResultDTO(i, entry != null ? entry.getUserId() : null,
+                                entry != null ? entry.getDate() : null, error == null ? null : "failed", error));
+                }
+                if (validByKey.isEmpty()) {
+                        return results;
+                }
+
+                Set<Long> validUsers = new HashSet<>();
+                Set<LocalDate> validDates = new HashSet<>();
+                validByKey.values().forEach(index -> {
+                        validUsers.add(entries.get(index).getUserId());
+                        validDates.add(entries.get(index).getDate());
+                });
+                Map<String, Shift> existing = new HashMap<>();
+                for (Shift shift : shiftRepository.findAllForRoster(company.getId(), validUsers, validDates)) {
+                        existing.putIfAbsent(shift.getUser().getId() + ":" + shift.getDate(), shift);
+                }
+
+                List<Shift> toSave = new ArrayList<>();
+                LocalDate from = null;
+                LocalDate to = null;
+                for (Map.Entry<String, Integer> valid : validByKey.entrySet()) {
+                        RosterEntryDTO entry = entries.get(valid.getValue());
+                        Shift shift = existing.get(valid.getKey());
+                        String status = "updated";
+                        if (shift == null) {
+                                shift = new Shift();
+                                shift.setUser(workers.get(entry.getUserId()));
+                                shift.setDate(entry.getDate());
+                                shift.setCompany(company);
+                                status = "created";
+                        }
+                        // samat säännöt kuin addShift: puuttuva arvo ei ylikirjoita
+                        shift.setStartTime(entry.getStartTime());
+                        if (entry.getEndTime() != null) {
+                                shift.setEndTime(entry.getEndTime());
+                        }
+                        if (entry.getBreaksTotal() != null) {
+                                shift.setBreaksTotal(entry.getBreaksTotal());
+                        }
+                        if (entry.getDescription() != null) {
+                                shift.setDescription(entry.getDescription());
+                        }
+                        toSave.add(shift);
+                        results.get(valid.getValue()).setStatus(status);
+                        from = from == null || entry.getDate().isBefore(from) ? entry.getDate() : from;
+                        to = to == null || entry.getDate().isAfter(to) ? entry.getDate() : to;
+                }
+                shiftRepository.saveAll(toSave);
+                shiftRepository.flush();  // batchit lähtevät tässä, virhe kaataa koko transaktion
+
+                rosterCache.invalidate(company.getId());
+                // yksi ilmoitus koko listasta, clientit hakevat muutokset (/api/sync/shifts tai ETagilla)
+                companyEventHub.publish(company.getId(), "roster-updated",
+                        Map.of("count", toSave.size(), "from", from, "to", to));
+                return results;
         }
 
+        // ETagien muutosversio: kasvaa kun companyn vuoroja tai vuorolistassa näkyviä nimiä muutetaan
+        public long getRosterVersion(Long companyId){
+                return rosterCache.version(companyId);
+        }
+
+        // listaukset RosterCachesta: kantaan vain kun companyn vuorot ovat muuttuneet edellisen haun jälkeen
+        public List<ShiftListDTO> getAllShiftsByCompanyId(Long id){
+                return rosterCache.all(id);
+        }
+
+        // kirjoittaa samat rivit suoraan responseen, transaktio pitää kursorin auki kirjoituksen ajan
         @Transactional
-        public List<Shift> getAllFutureShiftsByCompanyId(Long id){
+        public void writeAllShiftsByCompanyId(Long id, OutputStream out) throws IOException {
+                try (Stream<ShiftListDTO> rows = shiftRepository.streamAllByCompanyId(id)) {
+                        jsonArrayWriter.write(rows, out);
+                }
+        }
+
+        public List<ShiftListDTO> getAllFutureShiftsByCompanyId(Long id){
                 LocalDate date = LocalDate.now();
-                return shiftRepository.findAllFutureShiftsByCompanyId(id, date);
+                return shiftTemplateService.withTemplates(id, rosterCache.future(id, date), date, userId -> true);
         }
 
         public void deleteShiftsByShiftId(Long id){
-                shiftRepository.deleteById(id);
+                deleteShift(id);
         }
 
         public Shift findByID (Long id){
@@ -107,17 +263,32 @@ public class ShiftService {
         public void deleteOldShifts(int days, Company company){
                 LocalDate cutOff = LocalDate.now().minusDays(days);
                 shiftRepository.deleteOldShifts(cutOff, company.getId());
+                rosterCache.invalidate(company.getId());
         }
 
-        @Transactional
-        public List<Shift> getCompanyFutureShiftsExcludingUser(User user){
+        public List<ShiftListDTO> getCompanyFutureShiftsExcludingUser(User user){
+                return getCompanyFutureShiftsExcludingUser(user.getId(), user.getCompany().getId());
+        }
+
+        public List<ShiftListDTO> getCompanyFutureShiftsExcludingUser(Long userId, Long companyId){
                 LocalDate date = LocalDate.now();
-                return shiftRepository.findAllByUserExcludingUser(user.getId(), user.getCompany().getId(), date);
+                return shiftTemplateService.withTemplates(companyId, rosterCache.futureExcludingUser(companyId, userId, date),
+                        date, templateUserId -> templateUserId != userId);
+        }
+
+        public List<ShiftListDTO> getAllCompanyShiftsExcludingUserNoDate(User user){
+                return getAllCompanyShiftsExcludingUserNoDate(user.getId(), user.getCompany().getId());
+        }
+
+        public List<ShiftListDTO> getAllCompanyShiftsExcludingUserNoDate(Long userId, Long companyId){
+                return rosterCache.excludingUser(companyId, userId);
         }
 
         @Transactional
-        public List<Shift> getAllCompanyShiftsExcludingUserNoDate(User user){
-                return shiftRepository.findAllByUserExcludingUserNoDate(user.getId(), user.getCompany().getId());
+        public void writeAllCompanyShiftsExcludingUserNoDate(Long userId, Long companyId, OutputStream out) throws IOException {
+                try (Stream<ShiftListDTO> rows = shiftRepository.streamAllByUserExcludingUserNoDate(userId, companyId)) {
+                        jsonArrayWriter.write(rows, out);
+                }
         }
     
 }
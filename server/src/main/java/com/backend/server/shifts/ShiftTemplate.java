@@ -0,0 +1,91 @@
+package com.backend.server.shifts;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.backend.server.companies.Company;
+import com.backend.server.users.User;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Toistuva työvuoro: sama aika valittuina viikonpäivinä voimassaolon ajan. Ei tallennu shifts tauluun riveinä,
+// vaan lasketaan auki listauksiin (ShiftService). Saman käyttäjän ja päivän Shift rivi ohittaa toistuvan vuoron
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "shift_templates", indexes = {
+    @Index(name = "idx_shift_templates_company", columnList = "company_id")
+})
+public class ShiftTemplate {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable=false, referencedColumnName = "id")  // KÄYTTÄJÄ JOLLE VUORO ON MÄÄRÄTTY
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "company_id", nullable=false, referencedColumnName = "id")
+    private Company company;
+
+    @Column(nullable=false)  // bitti per viikonpäivä, maanantai = 1, tiistai = 2 ... sunnuntai = 64
+    private int weekdays;
+
+    @Column(nullable=false)
+    private LocalTime startTime;
+
+    private LocalTime endTime;
+
+    @Column(nullable=true, name = "breaks_total")
+    private Integer breaksTotal;
+
+    private String description;
+
+    @Column(nullable=false)
+    private LocalDate validFrom;
+
+    @Column(nullable=true)  // null = toistuu toistaiseksi
+    private LocalDate validTo;
+
+    public static int toMask(Collection<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= 1 << (day.getValue() - 1);
+        }
+        return mask;
+    }
+
+    public static List<DayOfWeek> toDays(int mask) {
+        List<DayOfWeek> days = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (matches(mask, day)) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    public static boolean matches(int mask, DayOfWeek day) {
+        return (mask & (1 << (day.getValue() - 1))) != 0;
+    }
+}
@@ -0,0 +1,23 @@
+package com.backend.server.shifts;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.backend.server.shifts.DTO.ShiftTemplateDTO;
+
+@Repository
+public interface ShiftTemplateRepository extends JpaRepository<ShiftTemplate, Long> {
+
+    // listausten projektio kuten ShiftRepository.SHIFT_LIST_DTO, nimet yhdellä joinilla
+    @Query("SELECT new com.backend.server.shifts.DTO.ShiftTemplateDTO("
+            + "t.id, u.id, u.firstName, u.lastName, t.weekdays, t.startTime, t.endTime, t.breaksTotal, t.description, "
+            + "t.validFrom, t.validTo, c.id, c.companyName) "
+            + "FROM ShiftTemplate t JOIN t.user u JOIN t.company c WHERE c.id = :companyId ORDER BY u.lastName, u.firstName, t.id")
+    List<ShiftTemplateDTO> findTemplateDTOsByCompanyId(@Param("companyId") Long companyId);
+
+    List<ShiftTemplate> findAllByCompanyId(Long companyId);
+}
@@ -0,0 +1,202 @@
+package com.backend.server.shifts;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.backend.server.companies.Company;
+import com.backend.server.events.CompanyEventHub;
+import com.backend.server.shifts.DTO.ShiftListDTO;
+import com.backend.server.shifts.DTO.ShiftTemplateDTO;
+import com.backend.server.shifts.DTO.TemplateShiftDTO;
+import com.backend.server.users.User;
+import com.backend.server.users.UserRepository;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+// Toistuvat työvuorot: tallennus, avaaminen listauksiin ja tarvittaessa tallennus shifts riveiksi (materialize).
+// Listauksiin avataan vain tulevat päivät shifts.templateHorizonDays päivän päähän, pohjat luetaan RosterCachesta
+@Service
+@RequiredArgsConstructor
+public class ShiftTemplateService {
+        private final ShiftTemplateRepository shiftTemplateRepository;
+        private final ShiftRepository shiftRepository;
+        private final UserRepository userRepository;
+        private final RosterCache rosterCache;
+        private final CompanyEventHub companyEventHub;
+
+        @Value("${shifts.templateHorizonDays}")
+        private int templateHorizonDays;
+
+        @Value("${shifts.templateMaterializeMaxDays}")
+        private int materializeMaxDays;
+
+        public List<ShiftTemplateDTO> getTemplates(Long companyId) {
+                return rosterCache.templates(companyId);
+        }
+
+        @Transactional
+        public ShiftTemplateDTO createTemplate(Company company, ShiftTemplateDTO dto) {
+                ShiftTemplate template = new ShiftTemplate();
+                template.setCompany(company);
+                apply(template, dto, company);
+                shiftTemplateRepository.save(template);
+                rosterCache.invalidate(company.getId());
+                dto.setId(template.getId());
+                return dto;
+        }
+
+        @Transactional
+        public ShiftTemplateDTO updateTemplate(Company company, Long id, ShiftTemplateDTO dto) {
+                ShiftTemplate template = findCompanyTemplate(company, id);
+                apply(template, dto, company);
+                shiftTemplateRepository.save(template);
+                rosterCache.invalidate(company.getId());
+                dto.setId(id);
+                return dto;
+        }
+
+        @Transactional
+        public void deleteTemplate(Company company, Long id) {
+                shiftTemplateRepository.delete(findCompanyTemplate(company, id));
+                rosterCache.invalidate(company.getId());
+        }
+
+        // toistuvien vuorojen päivät tähän päivään asti (to mukaan lukien) shifts riveiksi, tämän jälkeen niitä voi
+        // muokata ja poistaa kuten muitakin vuoroja. Pohjan voimassaolo alkaa materialisoidun jakson jälkeen, joten
+        // poistettu rivi ei palaa listaukseen pohjasta. Päivät joille on jo vuoro ohitetaan. templateId null = kaikki
+        @Transactional
+        public int materialize(Company company, Long templateId, LocalDate to) {
+                LocalDate today = LocalDate.now();
+                if (to == null || to.isBefore(today) || to.isAfter(today.plusDays(materializeMaxDays))) {
+                        throw new IllegalArgumentException("to must be between today and " + materializeMaxDays + " days ahead");
+                }
+                List<ShiftTemplate> templates = templateId != null
+                        ? List.of(findCompanyTemplate(company, templateId))
+                        : shiftTemplateRepository.findAllByCompanyId(company.getId());
+                if (templates.isEmpty()) {
+                        return 0;
+                }
+
+                // olemassa olevat vuorot pohjien käyttäjille koko jaksolta yhdellä kyselyllä
+                Set<Long> userIds = new HashSet<>();
+                templates.forEach(template -> userIds.add(template.getUser().getId()));
+                Set<LocalDate> dates = new HashSet<>(today.datesUntil(to.plusDays(1)).toList());
+                Set<String> taken = new HashSet<>();
+                for (Shift shift : shiftRepository.findAllForRoster(company.getId(), userIds, dates)) {
+                        taken.add(shift.getUser().getId() + ":" + shift.getDate());
+                }
+
+                List<Shift> toSave = new ArrayList<>();
+                for (ShiftTemplate template : templates) {
+                        LocalDate start = template.getValidFrom().isAfter(today) ? template.getValidFrom() : today;
+                        LocalDate end = template.getValidTo() != null && template.getValidTo().isBefore(to) ? template.getValidTo() : to;
+                        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                                if (ShiftTemplate.matches(template.getWeekdays(), date.getDayOfWeek())
+                                                && taken.add(template.getUser().getId() + ":" + date)) {
+                                        toSave.add(new Shift(null, template.getUser(), date, template.getStartTime(),
+                                                template.getEndTime(), template.getBreaksTotal(), template.getDescription(),
+                                                company, null));
+                                }
+                        }
+                        if (template.getValidTo() != null && !template.getValidTo().isAfter(to)) {
+                                shiftTemplateRepository.delete(template);  // koko voimassaolo materialisoitu
+                        } else if (!template.getValidFrom().isAfter(to)) {
+                                template.setValidFrom(to.plusDays(1));
+                        }
+                }
+                shiftRepository.saveAll(toSave);
+                shiftRepository.flush();  // batchit lähtevät tässä, virhe kaataa koko transaktion
+
+                rosterCache.invalidate(company.getId());
+                companyEventHub.publish(company.getId(), "roster-updated",
+                        Map.of("count", toSave.size(), "from", today, "to", to));
+                return toSave.size();
+        }
+
+        // tallennetut vuorot + toistuvista vuoroista lasketut päivät [from, from + horizon). Saman käyttäjän ja päivän
+        // tallennettu vuoro ohittaa toistuvan. userFilter rajaa pohjat samoin kuin explicit lista on rajattu
+        public List<ShiftListDTO> withTemplates(Long companyId, List<ShiftListDTO> explicit, LocalDate from,
+                                                LongPredicate userFilter) {
+                List<ShiftTemplateDTO> templates = rosterCache.templates(companyId);
+                if (templates.isEmpty()) {
+                        return explicit;
+                }
+                LocalDate until = from.plusDays(templateHorizonDays - 1);
+                Set<String> taken = new HashSet<>();
+                for (ShiftListDTO shift : explicit) {
+                        if (!shift.getDate().isAfter(until)) {
+                                taken.add(shift.getUserId() + ":" + shift.getDate());
+                        }
+                }
+                List<ShiftListDTO> merged = new ArrayList<>(explicit);
+                for (ShiftTemplateDTO template : templates) {
+                        if (!userFilter.test(template.getUserId())) {
+                                continue;
+                        }
+                        int mask = ShiftTemplate.toMask(template.getWeekdays());
+                        LocalDate start = template.getValidFrom().isAfter(from) ? template.getValidFrom() : from;
+                        LocalDate end = template.getValidTo() != null && template.getValidTo().isBefore(until) ? template.getValidTo() : until;
+                        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                                if (ShiftTemplate.matches(mask, date.getDayOfWeek())
+                                                && !taken.contains(template.getUserId() + ":" + date)) {
+                                        merged.add(new TemplateShiftDTO(template, date));
+                                }
+                        }
+                }
+                if (merged.size() == explicit.size()) {
+                        return explicit;
+                }
+                merged.sort(Comparator.comparing(ShiftListDTO::getDate).thenComparing(ShiftListDTO::getStartTime));
+                return merged;
+        }
+
+        private ShiftTemplate findCompanyTemplate(Company company, Long id) {
+                ShiftTemplate template = shiftTemplateRepository.findById(id).orElse(null);
+                if (template == null || !template.getCompany().getId().equals(company.getId())) {
+                        throw new IllegalArgumentException("Template not found");
+                }
+                return template;
+        }
+
+        private void apply(ShiftTemplate template, ShiftTemplateDTO dto, Company company) {
+                if (dto.getUserId() == null || dto.getStartTime() == null || dto.getValidFrom() == null) {
+                        throw new IllegalArgumentException("userId, startTime and validFrom are required");
+                }
+                if (dto.getWeekdays() == null || dto.getWeekdays().isEmpty()) {
+                        throw new IllegalArgumentException("weekdays are required");
+                }
+                if (dto.getValidTo() != null && dto.getValidTo().isBefore(dto.getValidFrom())) {
+                        throw new IllegalArgumentException("validTo can't be before validFrom");
+                }
+                if (dto.getDescription() != null && dto.getDescription().length() > 255) {
+                        throw new IllegalArgumentException("Description can't be longer than 255 characters");
+                }
+                User worker = userRepository.findById(dto.getUserId()).orElse(null);
+                if (worker == null || !worker.getCompany().getId().equals(company.getId())) {
+                        throw new IllegalArgumentException("Worker not found");
+                }
+                template.setUser(worker);
+                template.setWeekdays(ShiftTemplate.toMask(dto.getWeekdays()));
+                template.setStartTime(dto.getStartTime());
+                template.setEndTime(dto.getEndTime());
+                template.setBreaksTotal(dto.getBreaksTotal());
+                template.setDescription(dto.getDescription());
+                template.setValidFrom(dto.getValidFrom());
+                template.setValidTo(dto.getValidTo());
+                dto.setFirstName(worker.getFirstName());
+                dto.setLastName(worker.getLastName());
+                dto.setCompanyId(company.getId());
+                dto.setCompanyName(company.getCompanyName());
+        }
+}
@@ -0,0 +1,87 @@
+package com.backend.server.sync;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+// Delta syncin muutosjärjestys kannassa: shifts ja reported_hours riveille change_seq jokaisessa insertissä ja
+// updatessa, ja poistoista rivi change_tombstones tauluun. Triggereinä, jotta natiivit upsertit, JPQL/natiivit
+// bulk deletet ja JPA tallennukset kulkevat saman numeroinnin kautta.
+// Sama company ottaa advisory lockin transaktion loppuun asti ennen numeron hakua, joten companyn sisällä
+// change_seq järjestys on sama kuin commit järjestys: pienempi numero ei voi ilmestyä jo luetun cursorin taakse.
+// ddl-auto=update luo sarakkeet ja taulun, sekvenssi, funktio ja triggerit luodaan tässä.
+// Ajetaan kuten WorkDayUniqueDayMigration schema updaten jälkeen ennen kuin web server ottaa pyyntöjä vastaan,
+// yhdessä transaktiossa. Triggereitä ei pudoteta ja luoda uudelleen: puuttuva luodaan, olemassa oleva käyttää
+// funktion uusinta versiota, joten muutokset eivät voi ohittaa numerointia tai poistomerkintää.
+// Ajetaan joka käynnistyksessä, luonnit ovat idempotentteja ja täyttö koskee vain rivejä joilla ei vielä numeroa.
+@Component
+@DependsOn({"entityManagerFactory", "workDayUniqueDayMigration"})  // schema update ja yhdistetyt päivät ensin
+public class ChangeSequenceMigration {
+
+    private static final String TRACK_FUNCTION = "CREATE OR REPLACE FUNCTION track_row_change() RETURNS trigger AS $$\n"
+        + "DECLARE\n"
+        + "  v_user_id bigint;\n"
+        + "  v_company_id bigint;\n"
+        + "BEGIN\n"
+        + "  IF TG_OP = 'DELETE' THEN v_user_id := OLD.user_id; ELSE v_user_id := NEW.user_id; END IF;\n"
+        + "  IF TG_ARGV[0] = 'shift' THEN\n"
+        + "    IF TG_OP = 'DELETE' THEN v_company_id := OLD.company_id; ELSE v_company_id := NEW.company_id; END IF;\n"
+        + "  ELSE\n"
+        + "    SELECT company_id INTO v_company_id FROM users WHERE id = v_user_id;\n"
+        + "  END IF;\n"
+        + "  PERFORM pg_advisory_xact_lock(4223, CAST(COALESCE(v_company_id, 0) % 2147483647 AS integer));\n"
+        + "  IF TG_OP = 'DELETE' THEN\n"
+        + "    INSERT INTO change_tombstones (change_seq, entity_type, entity_id, user_id, company_id, deleted_at)\n"
+        + "    VALUES (nextval('change_seq'), TG_ARGV[0], OLD.id, v_user_id, v_company_id, now());\n"
+        + "    RETURN OLD;\n"
+        + "  END IF;\n"
+        + "  NEW.change_seq := nextval('change_seq');\n"
+        + "  RETURN NEW;\n"
+        + "END\n"
+        + "$$ LANGUAGE plpgsql";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ChangeSequenceMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void installChangeTracking() {
+        transactionTemplate.executeWithoutResult(status -> install());
+    }
+
+    private void install() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS change_seq");
+        jdbcTemplate.execute(TRACK_FUNCTION);
+        installTriggers("shifts", "shift");
+        installTriggers("reported_hours", "workday");
+        // olemassa olevat rivit, update trigger antaa numeron
+        int shifts = jdbcTemplate.update("UPDATE shifts SET change_seq = 0 WHERE change_seq IS NULL");
+        int workDays = jdbcTemplate.update("UPDATE reported_hours SET change_seq = 0 WHERE change_seq IS NULL");
+        if (shifts + workDays > 0) {
+            System.out.println("Change sequence assigned to existing rows, shifts: " + shifts + ", reported hours: " + workDays);
+        }
+    }
+
+    private void installTriggers(String table, String entityType) {
+        createTriggerIfMissing(table + "_change_seq", "BEFORE INSERT OR UPDATE ON " + table
+            + " FOR EACH ROW EXECUTE FUNCTION track_row_change('" + entityType + "')");
+        createTriggerIfMissing(table + "_tombstone", "AFTER DELETE ON " + table
+            + " FOR EACH ROW EXECUTE FUNCTION track_row_change('" + entityType + "')");
+    }
+
+    private void createTriggerIfMissing(String name, String definition) {
+        Integer existing = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_trigger WHERE tgname = ? AND NOT tgisinternal", Integer.class, name);
+        if (existing == null || existing == 0) {
+            jdbcTemplate.execute("CREATE TRIGGER " + name + " " + definition);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.backend.server.sync;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Poistettu vuoro tai raportoitu päivä delta syncille. Rivit lisää kannan trigger poiston yhteydessä,
+// sovellus vain lukee ja siivoaa (DataBaseCleaner). ks. ChangeSequenceMigration
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "change_tombstones", indexes = {
+    @Index(name = "idx_change_tombstones_company_seq", columnList = "company_id, change_seq"),
+    @Index(name = "idx_change_tombstones_user_seq", columnList = "user_id, change_seq"),
+    @Index(name = "idx_change_tombstones_deleted_at", columnList = "deleted_at")
+})
+public class ChangeTombstone {
+
+    public static final String SHIFT = "shift";
+    public static final String WORKDAY = "workday";
+    // siivouksen raja: tätä vanhemmat poistot on jo siivottu, vanhemmalla cursorilla client lataa kaiken uudelleen
+    public static final String PRUNED = "pruned";
+
+    @Id
+    @Column(name = "change_seq")  // sama change_seq sekvenssi kuin shifts ja reported_hours riveillä
+    private Long changeSeq;
+
+    @Column(name = "entity_type", nullable=false, length = 16)  // shift / workday / pruned
+    private String entityType;
+
+    @Column(name = "entity_id", nullable=true)
+    private Long entityId;
+
+    @Column(name = "user_id", nullable=true)
+    private Long userId;
+
+    @Column(name = "company_id", nullable=true)
+    private Long companyId;
+
+    @Column(name = "deleted_at", nullable=false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,37 @@
+package com.backend.server.sync;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChangeTombstoneRepository extends JpaRepository<ChangeTombstone, Long> {
+
+    // companyn (tai yhden käyttäjän, userId ei null) poistot cursorin jälkeen, määrä Pageablesta
+    @Query("SELECT t FROM ChangeTombstone t WHERE t.companyId = :companyId AND t.entityType = :entityType"
+            + " AND (:userId IS NULL OR t.userId = :userId) AND t.changeSeq > :since ORDER BY t.changeSeq")
+    List<ChangeTombstone> findSince(@Param("companyId") Long companyId, @Param("userId") Long userId,
+                                    @Param("entityType") String entityType, @Param("since") long since, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(t.changeSeq), 0) FROM ChangeTombstone t WHERE t.entityType = '" + ChangeTombstone.PRUNED + "'")
+    long findPrunedHorizon();
+
+    // siivous kahdessa osassa: uusin siivottava rivi jää rajamerkiksi (pruned), kaikki sitä vanhemmat poistetaan
+    @Modifying
+    @Query(value = "UPDATE change_tombstones SET entity_type = '" + ChangeTombstone.PRUNED + "', entity_id = NULL, "
+            + "user_id = NULL, company_id = NULL WHERE change_seq = "
+            + "(SELECT MAX(change_seq) FROM change_tombstones WHERE deleted_at < :cutOff)", nativeQuery = true)
+    int markPrunedHorizon(@Param("cutOff") LocalDateTime cutOff);
+
+    @Modifying
+    @Query(value = "DELETE FROM change_tombstones WHERE change_seq < "
+            + "(SELECT MAX(change_seq) FROM change_tombstones WHERE entity_type = '" + ChangeTombstone.PRUNED + "')",
+            nativeQuery = true)
+    int deleteBelowPrunedHorizon();
+}
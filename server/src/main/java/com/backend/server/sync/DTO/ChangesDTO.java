@@ -0,0 +1,22 @@
+package com.backend.server.sync.DTO;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// delta syncin vastaus: muuttuneet rivit ja poistettujen idt cursorin jälkeen, change_seq järjestyksessä.
+// nextCursor seuraavan haun since-arvoksi. reset = cursor on siivottua historiaa vanhempi, hae alusta (since=0)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangesDTO<T> {
+    private List<T> changed;
+    private List<Long> deleted;
+    private long nextCursor;
+    private boolean hasMore;
+    private boolean reset;
+}
@@ -0,0 +1,26 @@
+package com.backend.server.sync.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.backend.server.shifts.DTO.ShiftListDTO;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// lisätty tai muuttunut vuoro delta syncissä: samat kentät kuin listauksissa + muutosnumero
+@Getter
+@Setter
+@NoArgsConstructor
+public class ShiftChangeDTO extends ShiftListDTO {
+    private Long changeSeq;
+
+    // ShiftRepositoryn JPQL projektiota varten
+    public ShiftChangeDTO(Long changeSeq, Long id, Long userId, String firstName, String lastName, int breaksTotal,
+                          LocalDate date, LocalTime startTime, LocalTime endTime, String description,
+                          Long companyId, String companyName) {
+        super(id, userId, firstName, lastName, breaksTotal, date, startTime, endTime, description, companyId, companyName);
+        this.changeSeq = changeSeq;
+    }
+}
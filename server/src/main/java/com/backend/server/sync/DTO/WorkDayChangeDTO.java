@@ -0,0 +1,25 @@
+package com.backend.server.sync.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.backend.server.reportedhours.DTO.EveryOnesWorkDayDTO;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// lisätty tai muuttunut raportoitu päivä delta syncissä: samat kentät kuin companyn listauksessa + muutosnumero
+@Getter
+@Setter
+@NoArgsConstructor
+public class WorkDayChangeDTO extends EveryOnesWorkDayDTO {
+    private Long changeSeq;
+
+    // WorkDayRepositoryn JPQL projektiota varten, email jätetään pois
+    public WorkDayChangeDTO(Long changeSeq, Long id, Long userId, String firstName, String lastName, LocalDate date,
+                            LocalTime startTime, LocalTime endTime, Integer breaksTotal, String description, Boolean isHoliday) {
+        super(id, userId, firstName, lastName, date, startTime, endTime, breaksTotal, description, isHoliday);
+        this.changeSeq = changeSeq;
+    }
+}
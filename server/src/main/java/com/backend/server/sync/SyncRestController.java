@@ -0,0 +1,103 @@
+package com.backend.server.sync;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.backend.server.security.AuthContext;
+import com.backend.server.security.AuthPrincipal;
+import com.backend.server.security.RequireRole;
+import com.backend.server.utility.Role;
+
+import lombok.RequiredArgsConstructor;
+
+// muutokset edellisen haun jälkeen, ks. INFO/SyncEndpoints.md
+@RequiredArgsConstructor
+@CrossOrigin
+@RestController
+@RequestMapping("/api/sync")
+public class SyncRestController {
+    private final SyncService syncService;
+    private final AuthContext authContext;
+
+    @RequireRole
+    @GetMapping("/shifts") // käyttäjän omat määrätyt vuorot
+    public ResponseEntity<?> personalShiftChanges(@RequestParam(defaultValue = "0") long since,
+                                                  @RequestParam(required = false) Integer limit) {
+        try {
+            AuthPrincipal user = authContext.getPrincipal();
+            if (user.getCompanyId() == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+            }
+            return ResponseEntity.ok(syncService.getShiftChanges(user.getCompanyId(), user.getUserId(), since, limit));
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error");
+        }
+    }
+
+    @RequireRole
+    @GetMapping("/shifts/company") // companyn kaikkien vuorot, kuten /api/shifts/everyone/all
+    public ResponseEntity<?> companyShiftChanges(@RequestParam(defaultValue = "0") long since,
+                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            AuthPrincipal user = authContext.getPrincipal();
+            if (user.getCompanyId() == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+            }
+            return ResponseEntity.ok(syncService.getShiftChanges(user.getCompanyId(), null, since, limit));
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error");
+        }
+    }
+
+    @RequireRole
+    @GetMapping("/reports") // käyttäjän omat raportoidut päivät
+    public ResponseEntity<?> personalReportChanges(@RequestParam(defaultValue = "0") long since,
+                                                   @RequestParam(required = false) Integer limit) {
+        try {
+            AuthPrincipal user = authContext.getPrincipal();
+            if (user.getCompanyId() == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+            }
+            return ResponseEntity.ok(syncService.getWorkDayChanges(user.getCompanyId(), user.getUserId(), since, limit));
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error");
+        }
+    }
+
+    @RequireRole(Role.SUPERVISOR)
+    @GetMapping("/reports/company") // companyn kaikkien raportoidut päivät, kuten /api/report/company
+    public ResponseEntity<?> companyReportChanges(@RequestParam(defaultValue = "0") long since,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) Long userId) {
+        try {
+            AuthPrincipal user = authContext.getPrincipal();
+            if (user.getCompanyId() == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+            }
+            return ResponseEntity.ok(syncService.getWorkDayChanges(user.getCompanyId(), userId, since, limit));
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.backend.server.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.backend.server.reportedhours.WorkDayRepository;
+import com.backend.server.shifts.ShiftRepository;
+import com.backend.server.sync.DTO.ChangesDTO;
+import com.backend.server.sync.DTO.ShiftChangeDTO;
+import com.backend.server.sync.DTO.WorkDayChangeDTO;
+
+import lombok.RequiredArgsConstructor;
+
+// Delta sync: muuttuneet ja poistetut rivit cursorin (change_seq) jälkeen, jolloin clientin ei tarvitse ladata
+// koko listaa nähdäkseen muutokset. Numerointi ja poistojen tallennus kannan triggereissä, ks. ChangeSequenceMigration
+@RequiredArgsConstructor
+@Service
+public class SyncService {
+
+    private final ShiftRepository shiftRepository;
+    private final WorkDayRepository workDayRepository;
+    private final ChangeTombstoneRepository tombstoneRepository;
+
+    @Value("${sync.pageMaxSize}")
+    private int pageMaxSize;
+
+    // userId null = koko company
+    // REPEATABLE_READ: muutokset ja poistot samasta snapshotista, muuten kyselyjen välissä commitoitu poisto
+    // voisi siirtää cursorin ohi muutoksen jota ensimmäinen kysely ei nähnyt (jakarta Transactional ei tue isolaatiota)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ChangesDTO<ShiftChangeDTO> getShiftChanges(Long companyId, Long userId, long since, Integer limit) {
+        int size = pageSize(limit);
+        if (isPruned(since)) {
+            return reset();
+        }
+        List<ShiftChangeDTO> changed = shiftRepository.findChangesSince(companyId, userId, since, PageRequest.of(0, size + 1));
+        List<ChangeTombstone> deleted = tombstoneRepository.findSince(companyId, userId, ChangeTombstone.SHIFT, since,
+                PageRequest.of(0, size + 1));
+        return merge(changed, ShiftChangeDTO::getChangeSeq, deleted, since, size);
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ChangesDTO<WorkDayChangeDTO> getWorkDayChanges(Long companyId, Long userId, long since, Integer limit) {
+        int size = pageSize(limit);
+        if (isPruned(since)) {
+            return reset();
+        }
+        List<WorkDayChangeDTO> changed = workDayRepository.findChangesSince(companyId, userId, since, PageRequest.of(0, size + 1));
+        List<ChangeTombstone> deleted = tombstoneRepository.findSince(companyId, userId, ChangeTombstone.WORKDAY, since,
+                PageRequest.of(0, size + 1));
+        return merge(changed, WorkDayChangeDTO::getChangeSeq, deleted, since, size);
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return pageMaxSize;
+        }
+        if (limit < 1 || limit > pageMaxSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + pageMaxSize);
+        }
+        return limit;
+    }
+
+    // since=0 on aina ensimmäinen haku, sen jälkeen cursor ei saa olla siivottujen poistojen takana
+    private boolean isPruned(long since) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return since > 0 && since < tombstoneRepository.findPrunedHorizon();
+    }
+
+    private <T> ChangesDTO<T> reset() {
+        return new ChangesDTO<>(List.of(), List.of(), 0, false, true);
+    }
+
+    // molemmat listat change_seq järjestyksessä ja max size + 1 riviä, yhdistetään järjestyksessä size riviin asti
+    private <T> ChangesDTO<T> merge(List<T> changed, ToLongFunction<T> seqOf, List<ChangeTombstone> deleted,
+                                    long since, int size) {
+        List<T> pageChanged = new ArrayList<>();
+        List<Long> pageDeleted = new ArrayList<>();
+        long cursor = since;
+        int c = 0;
+        int d = 0;
+        while (pageChanged.size() + pageDeleted.size() < size && (c < changed.size() || d < deleted.size())) {
+            boolean takeChanged = d >= deleted.size()
+                    || (c < changed.size() && seqOf.applyAsLong(changed.get(c)) < deleted.get(d).getChangeSeq());
+            if (takeChanged) {
+                cursor = seqOf.applyAsLong(changed.get(c));
+                pageChanged.add(changed.get(c++));
+            } else {
+                cursor = deleted.get(d).getChangeSeq();
+                pageDeleted.add(deleted.get(d++).getEntityId());
+            }
+        }
+        boolean hasMore = c < changed.size() || d < deleted.size();
+        return new ChangesDTO<>(pageChanged, pageDeleted, cursor, hasMore, false);
+    }
+}
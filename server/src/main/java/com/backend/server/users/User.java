@@ -3,9 +3,11 @@ package com.backend.server.users;
 import java.util.Set;
 
 import com.backend.server.companies.Company;
+import com.backend.server.reportedhours.MonthlyHours;
 import com.backend.server.reportedhours.WorkDay;
 import com.backend.server.security.RefreshToken;
 import com.backend.server.shifts.Shift;
+import com.backend.server.shifts.ShiftTemplate;
 import com.backend.server.utility.Auditable;
 import com.backend.server.utility.Role;
 
@@ -70,6 +72,12 @@ public class User extends Auditable {
     @OneToMany(mappedBy = "user", cascade = CascadeType.REMOVE, orphanRemoval = true)
     private Set<WorkDay> workDays;
 
+    @OneToMany(mappedBy = "user", cascade = CascadeType.REMOVE, orphanRemoval = true)
+    private Set<ShiftTemplate> shiftTemplates;
+
+    @OneToMany(mappedBy = "user", cascade = CascadeType.REMOVE, orphanRemoval = true)
+    private Set<MonthlyHours> monthlyHours;
+
 
 
  
@@ -3,6 +3,7 @@ package com.backend.server.users;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
 import java.util.List;
 import com.backend.server.companies.Company;
 
@@ -12,9 +13,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // hae sähköpostilla
     Optional <User> findByEmail(String email);
 
+    // monta kerralla, esim. kioskin synkattavat leimaukset
+    List<User> findAllByEmailIn(Collection<String> emails);
+
     List<User> findByCompany(Company company);
 
     // hae kaikki company id perusteella
     List<User> findAllByCompanyId(Long id);
 
+    // vain annetun companyn käyttäjät, esim. työvuorolistan kohteiden tarkistus yhdellä kyselyllä
+    List<User> findAllByCompanyIdAndIdIn(Long companyId, Collection<Long> ids);
+
 } 
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.backend.server.utility;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Muutosversiot ehdollisille GET-pyynnöille (ETag / If-None-Match -> 304).
+// Laskuri per käyttäjä tai company kasvaa kun sen data muuttuu, joten ETag saadaan versioista rakentamatta
+// vastausta ja 304 palautetaan ennen kantahakuja. Työvuorolistoilla versio on RosterCachen companyversio.
+// Laskurit ovat muistissa kuten RosterCache: käynnistyksen aikaleima on jokaisessa ETagissa, joten
+// uudelleenkäynnistyksen jälkeen vanhat ETagit eivät täsmää.
+@Component
+public class ChangeVersions {
+
+    public static final String USER_REPORTS = "reports:user:";
+    public static final String COMPANY_REPORTS = "reports:company:";
+    public static final String COMPANY_SETTINGS = "settings:company:";
+
+    // vain käyttäjän oma client saa tallentaa, ja jokaisella haulla tarkistetaan ETagilla onko muuttunut
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long version(String scope, Long id) {
+        AtomicLong version = versions.get(scope + id);
+        return version == null ? 0 : version.get();
+    }
+
+    // transaktion sisällä vasta commitin jälkeen, jotta commitia ennen luettu vanha data ei saa uutta ETagia
+    public void bump(String scope, Long id) {
+        if (id == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(scope, id);
+                }
+            });
+        } else {
+            increment(scope, id);
+        }
+    }
+
+    // vahva ETag, esim. "lq2x1k-rp-12-4-0". Osiin käyttäjä/company, jotta tilin vaihto samalla laitteella ei saa 304:ää
+    public String etag(Object... parts) {
+        StringBuilder sb = new StringBuilder("\"").append(epoch);
+        for (Object part : parts) {
+            sb.append('-').append(part);
+        }
+        return sb.append('"').toString();
+    }
+
+    public static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+    }
+
+    public static ResponseEntity.BodyBuilder ok(String etag) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(CACHE_CONTROL);
+    }
+
+    private void increment(String scope, Long id) {
+        versions.computeIfAbsent(scope + id, key -> new AtomicLong()).incrementAndGet();
+    }
+}
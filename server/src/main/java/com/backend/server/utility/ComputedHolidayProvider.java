@@ -0,0 +1,84 @@
+package com.backend.server.utility;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Pyhäpäivät ilman ulkoista APIa: vakiopäivät propertiesistä, vaihtelevat (pitkäperjantai, 2. pääsiäispäivä,
+// helatorstai, juhannusaatto ja -päivä, pyhäinpäivä) lasketaan, holidays.variable on vain lisäpäiville.
+// Myös RemoteHolidayProviderin varalla kun APIa ei saada kiinni.
+@Getter
+@Setter
+@Component
+public class ComputedHolidayProvider implements HolidayProvider {
+
+    @Value("${holidays.fixed}")
+    private String fixedHolidays;
+
+    @Value("${holidays.variable}")
+    private String variableHolidays;
+
+    @Override
+    public Set<LocalDate> holidays(int year) {
+        Set<LocalDate> holidays = new HashSet<>();
+
+        // vakio pyhäpäivät propertiesistä (MM-dd)
+        for (String fixedHoliday : fixedHolidays.split(",")) {
+            if (!fixedHoliday.isBlank()) {
+                MonthDay monthDay = MonthDay.parse("--" + fixedHoliday.trim());
+                if (monthDay.isValidYear(year)) {
+                    holidays.add(monthDay.atYear(year));
+                }
+            }
+        }
+
+        // lasketut vaihtelevat pyhäpäivät
+        LocalDate easter = easterSunday(year);
+        holidays.add(easter.minusDays(2));  // pitkäperjantai
+        holidays.add(easter.plusDays(1));   // 2. pääsiäispäivä
+        holidays.add(easter.plusDays(39));  // helatorstai
+        LocalDate midsummerDay = LocalDate.of(year, 6, 20).with(TemporalAdjusters.nextOrSame(DayOfWeek.SATURDAY));
+        holidays.add(midsummerDay.minusDays(1));  // juhannusaatto
+        holidays.add(midsummerDay);  // juhannuspäivä
+        holidays.add(LocalDate.of(year, 10, 31).with(TemporalAdjusters.nextOrSame(DayOfWeek.SATURDAY)));  // pyhäinpäivä
+
+        // lisäpäivät propertiesistä (yyyy-MM-dd), vain tämän vuoden
+        for (String variableHoliday : variableHolidays.split(",")) {
+            if (!variableHoliday.isBlank()) {
+                LocalDate holiday = LocalDate.parse(variableHoliday.trim());
+                if (holiday.getYear() == year) {
+                    holidays.add(holiday);
+                }
+            }
+        }
+        return holidays;
+    }
+
+    // pääsiäissunnuntai gregoriaanisen kalenterin mukaan (Meeus/Jones/Butcher)
+    static LocalDate easterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = (h + l - 7 * m + 114) % 31 + 1;
+        return LocalDate.of(year, month, day);
+    }
+}
@@ -4,12 +4,20 @@ import org.springframework.stereotype.Component;
 
 import com.backend.server.companies.Company;
 import com.backend.server.companies.CompanyService;
+import com.backend.server.reportedhours.MonthlyHoursService;
+import com.backend.server.reportedhours.PunchEventRepository;
 import com.backend.server.reportedhours.WorkDayService;
+import com.backend.server.security.RefreshTokenService;
 import com.backend.server.shifts.ShiftService;
+import com.backend.server.sync.ChangeTombstoneRepository;
 
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 
@@ -23,28 +31,30 @@ import org.springframework.scheduling.annotation.Scheduled;
 public class DataBaseCleaner {
 
     @Value("${keepWorkShiftsFor}")
-    private String keepWorkShiftsForString;
-
-    private int keepWorkShiftsFor = keepWorkShiftsForString != null ? Integer.parseInt(keepWorkShiftsForString) : 0;
+    private int keepWorkShiftsFor;
 
     @Value("${keepWorkDaysFor}")
-    private String keepWorkDaysForString;
-
-    private int keepWorkDaysFor = keepWorkDaysForString != null ? Integer.parseInt(keepWorkDaysForString) : 0;
+    private int keepWorkDaysFor;
 
     @Value("${workShiftKeepMax}")
-    private String workShiftKeepMaxString;
-
-    private int workShiftKeepMax = workShiftKeepMaxString != null ? Integer.parseInt(workShiftKeepMaxString) : 0;
+    private int workShiftKeepMax;
 
     @Value("${workDayKeepMax}")
-    private String workDayKeepMaxString;
+    private int workDayKeepMax;
+
+    @Value("${kiosk.syncEventRetentionDays}")
+    private int syncEventRetentionDays;
 
-    private int workDayKeepMax = workDayKeepMaxString != null ? Integer.parseInt(workDayKeepMaxString) : 0;
+    @Value("${sync.tombstoneRetentionDays}")
+    private int tombstoneRetentionDays;
 
     private final ShiftService shiftService;
     private final WorkDayService workDayService;
     private final CompanyService companyService;
+    private final RefreshTokenService refreshTokenService;
+    private final MonthlyHoursService monthlyHoursService;
+    private final PunchEventRepository punchEventRepository;
+    private final ChangeTombstoneRepository changeTombstoneRepository;
 
 
     // käydään jokainen company läpi, katsotaan onko companyllä oma setting tiedonpoistolle, jos ei niin käytetään defaulttia
@@ -96,5 +106,42 @@ public class DataBaseCleaner {
             System.out.println("Old shifts deleted for company: " + company.getCompanyName());
         }
     }
-    
+
+    // vanhentuneet refresh tokenit, poistetaan erissä (refreshTokens.purgeBatchSize)
+    @Scheduled(cron = "0 15 * * * ?") // Ajetaan joka tunti, 15 yli
+    public void cleanExpiredRefreshTokens() {
+        long purged = refreshTokenService.purgeExpiredTokens();
+        // console log
+        System.out.println("Expired refresh tokens deleted: " + purged);
+    }
+
+    // monthly_hours vs reported_hours tarkistus, erot korjataan ja lokitetaan (ei pitäisi tapahtua)
+    @Scheduled(cron = "0 30 3 * * ?") // Ajetaan joka päivä klo 03:30, retentionin jälkeen
+    public void checkMonthlyHours() {
+        int repaired = monthlyHoursService.repair();
+        if (repaired > 0) {
+            // console log
+            System.out.println("Monthly hours rollup out of sync, months repaired: " + repaired);
+        }
+    }
+
+    // synkattujen leimausten tunnisteet, uudelleenlähetykset tulevat heti yhteyden palatessa
+    @Scheduled(cron = "0 45 3 * * ?") // Ajetaan joka päivä klo 03:45
+    @Transactional
+    public void cleanOldPunchEvents() {
+        int deleted = punchEventRepository.deleteReceivedBefore(Instant.now().minus(syncEventRetentionDays, ChronoUnit.DAYS));
+        // console log
+        System.out.println("Old synced punch events deleted: " + deleted);
+    }
+
+    // delta syncin poistomerkinnät, tätä vanhemmalla cursorilla client saa reset vastauksen ja hakee kaiken uudelleen
+    @Scheduled(cron = "0 50 3 * * ?") // Ajetaan joka päivä klo 03:50, retentionin poistojen jälkeen
+    @Transactional
+    public void cleanOldTombstones() {
+        changeTombstoneRepository.markPrunedHorizon(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        int deleted = changeTombstoneRepository.deleteBelowPrunedHorizon();
+        // console log
+        System.out.println("Old change tombstones deleted: " + deleted);
+    }
+
 }
@@ -0,0 +1,45 @@
+package com.backend.server.utility;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// pyhäpäivä APIn vastaus per maa per vuosi, jotta API kutsuja tehdään vain kun välimuisti vanhenee
+// (ja uudelleenkäynnistykset / useat instanssit jakavat saman haun), ks. RemoteHolidayProvider
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "holiday_cache", indexes = {
+    @Index(name = "uq_holiday_cache_country_year", columnList = "country, holiday_year", unique = true)
+})
+public class HolidayCache {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable=false, length = 2)
+    private String country;
+
+    @Column(nullable=false, name = "holiday_year")  // year on varattu sana osassa kantoja
+    private Integer year;
+
+    // päivät yyyy-MM-dd pilkulla eroteltuna
+    @Column(nullable=false, columnDefinition = "text")
+    private String dates;
+
+    @Column(name = "fetched_at", nullable=false)
+    private Instant fetchedAt;
+}
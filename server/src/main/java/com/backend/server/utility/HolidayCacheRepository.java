@@ -0,0 +1,12 @@
+package com.backend.server.utility;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HolidayCacheRepository extends JpaRepository<HolidayCache, Long> {
+
+    Optional<HolidayCache> findByCountryAndYear(String country, Integer year);
+}
@@ -2,67 +2,88 @@ package com.backend.server.utility;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
+// Pyhäpäivät vuosikalentereina: jokaiselle vuodelle BitSet (bitti = dayOfYear), rakennetaan kerran ensimmäisellä
+// kyselyllä eikä muuteta sen jälkeen. isHoliday on pelkkä bittitesti, ei parsintaa eikä allokointia per kutsu.
+// Päivät tulevat HolidayProviderilta: useHolidayApi=true -> RemoteHolidayProvider (välimuistitettu API),
+// muuten tai API virheessä ComputedHolidayProvider.
 @Getter
 @Setter
 @RequiredArgsConstructor
 @Service
 public class HolidayChecker {
 
-    @Value("${useHolidayApi}")
-    private Boolean useHolidayApi;  // TODO: holiday checker api, default false jollon app.props arvojen kanssa mennään
-    
-    @Value("${holidays.fixed}")
-    private String fixedHolidays;
+    // välimuistissa olevat vuodet, muut lasketaan kutsun aikana (harvinaista)
+    private static final int FIRST_CACHED_YEAR = 2000;
+    private static final int CACHED_YEARS = 200;
 
-    @Value("${holidays.variable}")
-    private String variableHolidays;
+    @Value("${useHolidayApi}")
+    private Boolean useHolidayApi;  // default false, APIssa rajallisesti kutsuja
 
-    @Value("${holidayChecker.apiKey}")
-    private String API_KEY;
+    private final ComputedHolidayProvider computedHolidayProvider;
+    private final RemoteHolidayProvider remoteHolidayProvider;
 
-    @Value("${holidayChecker.url}")
-    private String API_URL;
+    private final AtomicReferenceArray<BitSet> calendars = new AtomicReferenceArray<>(CACHED_YEARS);
 
-    public Boolean isHoliday(LocalDate date){  // TODO: testaukset
+    public Boolean isHoliday(LocalDate date){
         // Tarkista ensin onko sunnuntai
         if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
             return true;
         }
+        return calendar(date.getYear()).get(date.getDayOfYear());
+    }
 
-    
-        // App propertiesissa voi vaihtaa käytetäänkö API:a vai ei
-        if(useHolidayApi) {
-            // TODO: API koodit
-            return false;
-        } else {
-            Set<LocalDate> holidays = new HashSet<>();
-    
-            // Kerätään kovakoodatut vakio pyhäpäivät propertiesistä
-            for (String fixedHoliday : fixedHolidays.split(",")) {
-                LocalDate holiday = LocalDate.parse(date.getYear() + "-" + fixedHoliday);
-                holidays.add(holiday);
-            }
-    
-            // Kerätään kovakoodatut muuttuvat pyhäpäivät propertiesistä // TODO: tarkista että toimi
-            for (String variableHoliday : variableHolidays.split(",")) {
-                LocalDate holiday = LocalDate.parse(variableHoliday);
-                holidays.add(holiday);
+    // API käytössä: kalenterit rakennetaan uudelleen kerran päivässä, jotta vanhentunut välimuisti päivittyy
+    // ja APIn virheen takia laskettuun kalenteriin pudonnut vuosi yritetään uudelleen
+    @Scheduled(cron = "0 0 4 * * ?") // Ajetaan joka päivä klo 04:00
+    public void refreshCalendars() {
+        if (Boolean.TRUE.equals(useHolidayApi)) {
+            for (int i = 0; i < CACHED_YEARS; i++) {
+                calendars.set(i, null);
             }
+        }
+    }
 
-    
-            // Tarkistus
-            return holidays.contains(date);
+    private BitSet calendar(int year) {
+        int index = year - FIRST_CACHED_YEAR;
+        if (index < 0 || index >= CACHED_YEARS) {
+            return buildCalendar(year);
+        }
+        BitSet calendar = calendars.get(index);
+        if (calendar == null) {
+            // kilpailevat säikeet voivat rakentaa saman vuoden, kumpi tahansa kelpaa
+            calendar = buildCalendar(year);
+            calendars.compareAndSet(index, null, calendar);
+        }
+        return calendar;
+    }
+
+    private BitSet buildCalendar(int year) {
+        Set<LocalDate> holidays;
+        if (Boolean.TRUE.equals(useHolidayApi)) {
+            try {
+                holidays = remoteHolidayProvider.holidays(year);
+            } catch (RuntimeException e) {
+                // console log
+                System.out.println("Holiday API unavailable for " + year + ", using computed holidays: " + e.getMessage());
+                holidays = computedHolidayProvider.holidays(year);
+            }
+        } else {
+            holidays = computedHolidayProvider.holidays(year);
         }
+        BitSet calendar = new BitSet(367);
+        holidays.forEach(holiday -> calendar.set(holiday.getDayOfYear()));
+        return calendar;
     }
-    
 }
@@ -0,0 +1,12 @@
+package com.backend.server.utility;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+// Pyhäpäivien lähde HolidayCheckerille, haetaan koko vuosi kerralla. HolidayChecker tekee tuloksesta vuosikalenterin,
+// joten provideria kutsutaan korkeintaan kerran per vuosi per instanssi (ja välimuistin vanhetessa uudelleen).
+// Epäonnistuessa saa heittää poikkeuksen, HolidayChecker käyttää silloin ComputedHolidayProvideria.
+public interface HolidayProvider {
+
+    Set<LocalDate> holidays(int year);
+}
@@ -0,0 +1,39 @@
+package com.backend.server.utility;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+// Kirjoittaa rivit JSON taulukkona suoraan responseen rivi kerrallaan, ilman koko listaa muistissa.
+// Käytetään StreamingResponseBody listauksissa (?stream=true), kutsujan transaktio pitää kannan kursorin auki.
+@Component
+@RequiredArgsConstructor
+public class JsonArrayWriter {
+    private static final int FLUSH_EVERY = 500;  // rivejä per flush, client saa dataa jo kirjoituksen aikana
+
+    private final ObjectMapper objectMapper;  // springin konfiguroima, sama serialisointi kuin ResponseEntity.ok(lista)
+
+    public void write(Stream<?> rows, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);  // servlet sulkee oman streaminsa
+            generator.writeStartArray();
+            int written = 0;
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.backend.server.utility;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import jakarta.transaction.Transactional;
+import lombok.Getter;
+import lombok.Setter;
+
+// Pyhäpäivät ulkoisesta APIsta (calendarific muotoinen: ?api_key=&country=&year=, vastaus response.holidays[].date.iso),
+// koko vuosi yhdellä kutsulla. Vastaus tallennetaan holiday_cache tauluun holidayChecker.cacheDays päiväksi,
+// joten API kutsuja tulee korkeintaan yksi per maa per vuosi per välimuistin ikä, vaikka instansseja olisi monta.
+// Jos API ei vastaa, käytetään vanhentunuttakin välimuistia, ja jos sitäkään ei ole, heitetään poikkeus
+// (HolidayChecker käyttää silloin laskettua kalenteria).
+@Getter
+@Setter
+@Component
+public class RemoteHolidayProvider implements HolidayProvider {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Value("${holidayChecker.apiKey}")
+    private String apiKey;
+
+    @Value("${holidayChecker.url}")
+    private String apiUrl;
+
+    @Value("${holidayChecker.country}")
+    private String country;
+
+    @Value("${holidayChecker.cacheDays}")
+    private int cacheDays;
+
+    private final RestTemplate restTemplate;
+    private final HolidayCacheRepository holidayCacheRepository;
+
+    public RemoteHolidayProvider(RestTemplateBuilder restTemplateBuilder, HolidayCacheRepository holidayCacheRepository) {
+        this.restTemplate = restTemplateBuilder.setConnectTimeout(TIMEOUT).setReadTimeout(TIMEOUT).build();
+        this.holidayCacheRepository = holidayCacheRepository;
+    }
+
+    // kutsujan transaktio (esim. punchIn) keskeytetään: HTTP kutsu ei pidä sitä auki, ja tallennuksen
+    // uniikkivirhe kaatuu repositoryn omaan transaktioon eikä kutsujan
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Set<LocalDate> holidays(int year) {
+        Optional<HolidayCache> cached = holidayCacheRepository.findByCountryAndYear(country, year);
+        if (cached.isPresent() && cached.get().getFetchedAt().isAfter(Instant.now().minus(Duration.ofDays(cacheDays)))) {
+            return parseDates(cached.get().getDates());
+        }
+
+        Set<LocalDate> holidays;
+        try {
+            holidays = fetch(year);
+        } catch (RuntimeException e) {
+            if (cached.isPresent()) {
+                // console log
+                System.out.println("Holiday API failed, using expired cache for " + country + " " + year + ": " + e.getMessage());
+                return parseDates(cached.get().getDates());
+            }
+            throw e;
+        }
+
+        HolidayCache entry = cached.orElseGet(HolidayCache::new);
+        entry.setCountry(country);
+        entry.setYear(year);
+        entry.setDates(holidays.stream().sorted().map(LocalDate::toString).collect(Collectors.joining(",")));
+        entry.setFetchedAt(Instant.now());
+        try {
+            holidayCacheRepository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            // toinen instanssi ehti tallentaa saman vuoden, sen rivi kelpaa
+        }
+        return holidays;
+    }
+
+    private Set<LocalDate> fetch(int year) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(apiUrl)
+                .queryParam("api_key", apiKey)
+                .queryParam("country", country)
+                .queryParam("year", year)
+                .build().toUri();
+        JsonNode body = restTemplate.getForObject(uri, JsonNode.class);
+        JsonNode items = body != null ? body.path("response").path("holidays") : null;
+        if (items == null || !items.isArray()) {
+            throw new IllegalStateException("Unexpected holiday API response, code " + (body != null ? body.path("meta").path("code").asText() : "-"));
+        }
+
+        Set<LocalDate> holidays = new HashSet<>();
+        for (JsonNode item : items) {
+            // vain viralliset vapaapäivät, ei liputus- tai teemapäiviä. Jos tyyppiä ei ole, otetaan mukaan
+            JsonNode types = item.path("type");
+            boolean national = !types.isArray() || types.isEmpty();
+            for (JsonNode type : types) {
+                national |= "National holiday".equals(type.asText());
+            }
+            String iso = item.path("date").path("iso").asText("");
+            if (national && iso.length() >= 10) {
+                LocalDate date = LocalDate.parse(iso.substring(0, 10));
+                if (date.getYear() == year) {
+                    holidays.add(date);
+                }
+            }
+        }
+        return holidays;
+    }
+
+    private static Set<LocalDate> parseDates(String dates) {
+        return Arrays.stream(dates.split(","))
+                .filter(date -> !date.isBlank())
+                .map(LocalDate::parse)
+                .collect(Collectors.toSet());
+    }
+}
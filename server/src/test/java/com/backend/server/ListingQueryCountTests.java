@@ -0,0 +1,152 @@
+package com.backend.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import com.backend.server.companies.Company;
+import com.backend.server.reportedhours.WorkDay;
+import com.backend.server.reportedhours.WorkDayRepository;
+import com.backend.server.reportedhours.DTO.EveryOnesWorkDayDTO;
+import com.backend.server.shifts.Shift;
+import com.backend.server.shifts.ShiftRepository;
+import com.backend.server.shifts.DTO.ShiftListDTO;
+import com.backend.server.users.User;
+import com.backend.server.utility.Role;
+
+// Listausendpointtien kyselyt: yksi SQL lause riippumatta rivien tai käyttäjien määrästä (ei N+1).
+// H2 postgres moodissa, jsonb domain jotta Companyn settings sarake luodaan.
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:listing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;INIT=CREATE DOMAIN IF NOT EXISTS jsonb AS JSON",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database=H2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ListingQueryCountTests {
+
+    private static final int WORKERS = 5;
+    private static final int DAYS = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private WorkDayRepository workDayRepository;
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    private Statistics statistics;
+    private Company company;
+    private User supervisor;
+
+    @BeforeEach
+    void setUp() {
+        company = new Company();
+        company.setCompanyName("Testiyritys");
+        entityManager.persist(company);
+
+        for (int i = 0; i < WORKERS; i++) {
+            User user = new User();
+            user.setEmail("worker" + i + "@example.com");
+            user.setPassword("hash");
+            user.setFirstName("Etu" + i);
+            user.setLastName("Suku" + i);
+            user.setRole(i == 0 ? Role.SUPERVISOR : Role.WORKER);
+            user.setCompany(company);
+            entityManager.persist(user);
+            if (i == 0) {
+                supervisor = user;
+            }
+            for (int d = 0; d < DAYS; d++) {
+                WorkDay workDay = new WorkDay();
+                workDay.setUser(user);
+                workDay.setDate(LocalDate.now().minusDays(d));
+                workDay.setStartTime(LocalTime.of(8, 0));
+                workDay.setEndTime(LocalTime.of(16, 0));
+                workDay.setIsHoliday(false);
+                entityManager.persist(workDay);
+
+                Shift shift = new Shift();
+                shift.setUser(user);
+                shift.setCompany(company);
+                shift.setDate(LocalDate.now().plusDays(d));
+                shift.setStartTime(LocalTime.of(8, 0));
+                entityManager.persist(shift);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();  // ei persistence contextin välimuistia, kaikki haut menevät kantaan
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void companyReportsUseSingleStatement() {  // /api/report/company
+        List<EveryOnesWorkDayDTO> rows = workDayRepository.findAllByUserIn(company.getId());
+
+        assertEquals(WORKERS * DAYS, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void othersReportsUseSingleStatement() {  // /api/report/others
+        List<EveryOnesWorkDayDTO> rows = workDayRepository.findAllByUserExcludingUser(supervisor.getId(), company.getId());
+
+        assertEquals((WORKERS - 1) * DAYS, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void reportPageUsesSingleStatement() {  // /api/report/company?limit=
+        List<EveryOnesWorkDayDTO> rows = workDayRepository.findCompanyPage(company.getId(), null, null,
+                LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 31), LocalDate.of(9999, 12, 31), Long.MAX_VALUE,
+                PageRequest.of(0, 7));
+
+        assertEquals(7, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void personalReportsUseSingleStatement() {  // /api/report/personal
+        assertEquals(DAYS, workDayRepository.findLastWorkDayDTOsForUser(supervisor.getId(), PageRequest.of(0, 31)).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void companyShiftsUseSingleStatement() {  // /api/shifts/everyone/all ja /everyone
+        List<ShiftListDTO> all = shiftRepository.findAllByCompanyId(company.getId());
+        List<ShiftListDTO> future = shiftRepository.findAllFutureShiftsByCompanyId(company.getId(), LocalDate.now());
+
+        assertEquals(WORKERS * DAYS, all.size());
+        assertEquals(WORKERS * DAYS, future.size());
+        assertEquals("Testiyritys", all.get(0).getCompanyName());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void othersAndPersonalShiftsUseSingleStatement() {  // /api/shifts/others, /others/all, /personal, /personal/all
+        assertEquals((WORKERS - 1) * DAYS, shiftRepository.findAllByUserExcludingUser(supervisor.getId(), company.getId(), LocalDate.now()).size());
+        assertEquals((WORKERS - 1) * DAYS, shiftRepository.findAllByUserExcludingUserNoDate(supervisor.getId(), company.getId()).size());
+        assertEquals(DAYS, shiftRepository.findFutureShiftsByUserId(supervisor.getId(), LocalDate.now(), company.getId()).size());
+        assertEquals(DAYS, shiftRepository.findShiftListByUserId(supervisor.getId()).size());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,202 @@
+package com.backend.server.reportedhours;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.backend.server.companies.Company;
+import com.backend.server.reportedhours.DTO.PunchEventDTO;
+import com.backend.server.reportedhours.DTO.PunchSyncResultDTO;
+import com.backend.server.users.User;
+import com.backend.server.users.UserRepository;
+import com.backend.server.utility.ChangeVersions;
+import com.backend.server.utility.HolidayChecker;
+
+// kioskin offline jonon synkkaus: deduplikointi, käyttäjittäinen aikajärjestys, yövuoron ulosleimaus,
+// toisen companyn käyttäjät ja lopetetun päivän suojaus. Natiivit upsertit (ON CONFLICT / RETURNING) mockattu
+class PunchSyncServiceTests {
+
+    private static final Long COMPANY = 1L;
+    private static final LocalDate YESTERDAY = LocalDate.now().minusDays(1);
+
+    private WorkDayRepository workDayRepository;
+    private PunchEventRepository punchEventRepository;
+    private UserRepository userRepository;
+    private PresenceIndex presenceIndex;
+    private MonthlyHoursService monthlyHoursService;
+    private PunchSyncService service;
+
+    private User worker;
+
+    @BeforeEach
+    void setUp() {
+        workDayRepository = mock(WorkDayRepository.class);
+        punchEventRepository = mock(PunchEventRepository.class);
+        userRepository = mock(UserRepository.class);
+        presenceIndex = mock(PresenceIndex.class);
+        monthlyHoursService = mock(MonthlyHoursService.class);
+        service = new PunchSyncService(workDayRepository, punchEventRepository, userRepository, mock(HolidayChecker.class),
+                presenceIndex, monthlyHoursService, mock(ChangeVersions.class));
+        ReflectionTestUtils.setField(service, "syncMaxEvents", 100);
+        ReflectionTestUtils.setField(service, "maxClockSkewSeconds", 300L);
+        ReflectionTestUtils.setField(service, "maxEventAgeHours", 72L);
+
+        worker = user(5L, "worker@example.com", COMPANY);
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of(worker));
+        when(punchEventRepository.findProcessedKeys(anyCollection())).thenReturn(new ArrayList<>());
+    }
+
+    @Test
+    void duplicatesAcrossAndWithinRequests() {
+        when(punchEventRepository.findProcessedKeys(anyCollection())).thenReturn(List.of(COMPANY + ":k1-1"));
+        when(workDayRepository.upsertOpenPunchIn(eq(5L), eq(YESTERDAY), any(), anyBoolean()))
+                .thenReturn(Optional.of(workDay(YESTERDAY)));
+
+        List<PunchSyncResultDTO> results = service.sync(COMPANY, List.of(
+                event("k1-1", 5L, YESTERDAY.atTime(7, 0), "in"),    // käsitelty edellisessä pyynnössä
+                event("k1-2", 5L, YESTERDAY.atTime(8, 0), "in"),
+                event("k1-2", 5L, YESTERDAY.atTime(8, 0), "in")));  // sama pyyntö lähetti kahdesti
+
+        assertEquals(List.of("duplicate", "applied", "duplicate"), statuses(results));
+        verify(workDayRepository, times(1)).upsertOpenPunchIn(eq(5L), eq(YESTERDAY), eq(LocalTime.of(8, 0)), anyBoolean());
+        verify(punchEventRepository).saveAll(eventsWithIds("k1-2"));
+    }
+
+    @Test
+    void eventsReplayedPerUserInTimestampOrder() {
+        when(workDayRepository.upsertOpenPunchIn(eq(5L), eq(YESTERDAY), any(), anyBoolean()))
+                .thenReturn(Optional.of(workDay(YESTERDAY)));
+        when(workDayRepository.updatePunchOut(eq(5L), eq(YESTERDAY), any())).thenReturn(Optional.of(workDay(YESTERDAY)));
+
+        // jono tuli väärässä järjestyksessä: ulos ennen sisään
+        List<PunchSyncResultDTO> results = service.sync(COMPANY, List.of(
+                event("k1-2", 5L, YESTERDAY.atTime(16, 0), "out"),
+                event("k1-1", 5L, YESTERDAY.atTime(8, 0), "in")));
+
+        assertEquals(List.of("applied", "applied"), statuses(results));  // vastaus pyynnön järjestyksessä
+        InOrder order = inOrder(workDayRepository);
+        order.verify(workDayRepository).upsertOpenPunchIn(eq(5L), eq(YESTERDAY), eq(LocalTime.of(8, 0)), anyBoolean());
+        order.verify(workDayRepository).updatePunchOut(5L, YESTERDAY, LocalTime.of(16, 0));
+        verify(presenceIndex).punchedOut(5L);
+        verify(monthlyHoursService).refresh(5L, Set.of(YESTERDAY));
+    }
+
+    @Test
+    void overnightPunchOutClosesPreviousDay() {
+        LocalDate twoDaysAgo = YESTERDAY.minusDays(1);
+        when(workDayRepository.updateOpenPunchOut(5L, twoDaysAgo, LocalTime.of(6, 0)))
+                .thenReturn(Optional.of(workDay(twoDaysAgo)));
+
+        List<PunchSyncResultDTO> results = service.sync(COMPANY, List.of(
+                event("k1-1", 5L, YESTERDAY.atTime(6, 0), "out")));
+
+        assertEquals(List.of("applied"), statuses(results));
+        verify(workDayRepository).updatePunchOut(5L, YESTERDAY, LocalTime.of(6, 0));  // ei riviä ulosleimauksen päivälle
+        verify(monthlyHoursService).refresh(5L, Set.of(twoDaysAgo));
+    }
+
+    @Test
+    void punchOutWithoutStartedDayFails() {
+        List<PunchSyncResultDTO> results = service.sync(COMPANY, List.of(
+                event("k1-1", 5L, YESTERDAY.atTime(16, 0), "out")));
+
+        assertEquals("failed", results.get(0).getStatus());
+        assertEquals("No started workday", results.get(0).getMessage());
+        verify(punchEventRepository).saveAll(eventsWithIds("k1-1"));  // tallennetaan, uudelleenlähetys -> duplicate
+    }
+
+    @Test
+    void finishedDayIsNotReopened() {
+        // upsert ei palauta riviä kun päivällä on jo lopetus
+        List<PunchSyncResultDTO> results = service.sync(COMPANY, List.of(
+                event("k1-1", 5L, YESTERDAY.atTime(18, 0), "in")));
+
+        assertEquals("failed", results.get(0).getStatus());
+        assertEquals("Workday already finished", results.get(0).getMessage());
+        verify(presenceIndex, never()).punchedIn(any(), any());
+    }
+
+    @Test
+    void otherCompanysUsersAreRejected() {
+        User outsider = user(6L, "outsider@example.com", 2L);
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of(worker, outsider));
+        when(workDayRepository.upsertOpenPunchIn(eq(5L), eq(YESTERDAY), any(), anyBoolean()))
+                .thenReturn(Optional.of(workDay(YESTERDAY)));
+
+        List<PunchSyncResultDTO> results = service.sync(COMPANY, List.of(
+                event("k1-1", 6L, YESTERDAY.atTime(8, 0), "in"),
+                event("k1-2", 5L, YESTERDAY.atTime(8, 0), "in")));
+
+        assertEquals(List.of("failed", "applied"), statuses(results));
+        assertEquals("Unauthorized", results.get(0).getMessage());
+        verify(workDayRepository, never()).upsertOpenPunchIn(eq(6L), any(), any(), anyBoolean());
+        verify(punchEventRepository).saveAll(eventsWithIds("k1-2"));
+    }
+
+    @Test
+    void rejectsOldAndFutureTimestampsAndMissingKiosk() {
+        List<PunchSyncResultDTO> results = service.sync(COMPANY, List.of(
+                event("k1-1", 5L, LocalDateTime.now().minusHours(73), "in"),
+                event("k1-2", 5L, LocalDateTime.now().plusHours(1), "in")));
+
+        assertEquals(List.of("failed", "failed"), statuses(results));
+        assertEquals("Timestamp older than 72 hours", results.get(0).getMessage());
+        assertEquals("Timestamp missing or in the future", results.get(1).getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> service.sync(null, List.of(event("k1-3", 5L, YESTERDAY.atTime(8, 0), "in"))));
+    }
+
+    private static List<PunchEvent> eventsWithIds(String... eventIds) {
+        return argThat(saved -> saved != null && saved.stream().map(PunchEvent::getEventId).toList().equals(List.of(eventIds)));
+    }
+
+    private static List<String> statuses(List<PunchSyncResultDTO> results) {
+        return results.stream().map(PunchSyncResultDTO::getStatus).toList();
+    }
+
+    private static PunchEventDTO event(String eventId, Long userId, LocalDateTime timestamp, String direction) {
+        return new PunchEventDTO(eventId, userId, null, timestamp, direction);
+    }
+
+    private WorkDay workDay(LocalDate date) {
+        WorkDay workDay = new WorkDay();
+        workDay.setId(100L);
+        workDay.setUser(worker);
+        workDay.setDate(date);
+        workDay.setStartTime(LocalTime.of(8, 0));
+        return workDay;
+    }
+
+    private static User user(Long id, String email, Long companyId) {
+        Company company = new Company();
+        company.setId(companyId);
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setCompany(company);
+        return user;
+    }
+}
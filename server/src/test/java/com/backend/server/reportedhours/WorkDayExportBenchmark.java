@@ -0,0 +1,125 @@
+package com.backend.server.reportedhours;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.backend.server.reportedhours.DTO.EveryOnesWorkDayDTO;
+import com.backend.server.utility.JsonArrayWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+// Miljoona synteettistä riviä CSV:ksi, XLSX:ksi ja vertailuksi JSON:ksi (?stream=true). Tulos riveinä sekunnissa,
+// heapin huippu (kaikki heap poolit) tulostetaan jokaisen iteraation jälkeen. Fork -Xmx256m: export ei saa
+// riippua rivimäärästä, koko lista muistissa ei mahtuisi.
+// Ajo: mvn test-compile, sitten main metodi IDE:stä tai test classpathilla.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class WorkDayExportBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private WorkDayExportWriter exportWriter;
+    private JsonArrayWriter jsonWriter;
+
+    @Setup
+    public void setup() {
+        exportWriter = new WorkDayExportWriter();
+        jsonWriter = new JsonArrayWriter(new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeak() {
+        System.gc();
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeak() {
+        long peak = heapPools().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.println(" peak heap " + (peak / (1024 * 1024)) + " MB");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long csv() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        exportWriter.writeCsv(rows(), out);
+        return out.count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long xlsx() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        exportWriter.writeXlsx(rows(), out);
+        return out.count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long json() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        jsonWriter.write(rows(), out);
+        return out.count;
+    }
+
+    // rivit luodaan lennossa kuten kannan kursorista, 200 työntekijää
+    private static Stream<EveryOnesWorkDayDTO> rows() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        return LongStream.range(0, ROWS).mapToObj(i -> new EveryOnesWorkDayDTO(i, i % 200, "Etu" + (i % 200), "Suku" + (i % 200),
+                start.plusDays(i / 200), LocalTime.of(8, 0), LocalTime.of(16, (int) (i % 60)), 30,
+                i % 10 == 0 ? "Kuvaus, pilkulla" : "", i % 50 == 0));
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP);
+    }
+
+    // kuin servletin output, mutta vain laskee tavut
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WorkDayExportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
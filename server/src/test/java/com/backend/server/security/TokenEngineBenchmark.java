@@ -0,0 +1,82 @@
+package com.backend.server.security;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.backend.server.utility.Role;
+
+// Vertailu: vanha tapa (Algorithm + JWTVerifier joka kutsulla) vs TokenEngine (rakennettu kerran).
+// Ajo: mvn test-compile, sitten main metodi IDE:stä tai test classpathilla.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenEngineBenchmark {
+
+    private static final String SECRET = "benchmarkSecret";
+    private static final long TTL_MS = 900000;
+
+    private TokenEngine engine;
+    private String legacyToken;
+    private String engineToken;
+
+    @Setup
+    public void setup() {
+        engine = new TokenEngine(SECRET, "");
+        legacyToken = legacySign();
+        engineToken = engine.sign("worker@example.com", Role.WORKER, TTL_MS);
+    }
+
+    @Benchmark
+    public String signPerCallAlgorithm() {
+        return legacySign();
+    }
+
+    @Benchmark
+    public String signSharedEngine() {
+        return engine.sign("worker@example.com", Role.WORKER, TTL_MS);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyPerCallVerifier() {
+        Algorithm algorithm = Algorithm.HMAC256(SECRET);
+        return JWT.require(algorithm).build().verify(legacyToken);
+    }
+
+    @Benchmark
+    public DecodedJWT verifySharedEngine() {
+        return engine.verify(engineToken);
+    }
+
+    private String legacySign() {
+        Algorithm algorithm = Algorithm.HMAC256(SECRET);
+        return JWT.create()
+            .withSubject("worker@example.com")
+            .withClaim("role", Role.WORKER.toString())
+            .withExpiresAt(new Date(System.currentTimeMillis() + TTL_MS))
+            .sign(algorithm);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.backend.server.shifts;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.backend.server.shifts.DTO.ShiftListDTO;
+import com.backend.server.shifts.DTO.ShiftTemplateDTO;
+import com.backend.server.shifts.DTO.TemplateShiftDTO;
+
+// toistuvien vuorojen avaus listaukseen: viikonpäivät, voimassaolo, horisontti ja tallennetun vuoron ohitus
+class ShiftTemplateServiceTests {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 5, 6);
+
+    private RosterCache rosterCache;
+    private ShiftTemplateService service;
+
+    @BeforeEach
+    void setUp() {
+        rosterCache = mock(RosterCache.class);
+        service = new ShiftTemplateService(null, null, null, rosterCache, null);
+        ReflectionTestUtils.setField(service, "templateHorizonDays", 14);
+    }
+
+    @Test
+    void expandsWeekdaysWithinHorizonAndValidity() {
+        when(rosterCache.templates(1L)).thenReturn(List.of(
+                template(10L, 5L, List.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), MONDAY.minusDays(30), null),
+                template(11L, 6L, List.of(DayOfWeek.FRIDAY), MONDAY.plusDays(7), MONDAY.plusDays(30))));
+
+        List<ShiftListDTO> shifts = service.withTemplates(1L, List.of(), MONDAY, userId -> true);
+
+        // ma + ke kahdelta viikolta, pe vasta toisella viikolla voimassaolon alusta
+        assertEquals(List.of(MONDAY, MONDAY.plusDays(2), MONDAY.plusDays(7), MONDAY.plusDays(9), MONDAY.plusDays(11)),
+                shifts.stream().map(ShiftListDTO::getDate).toList());
+        assertNull(shifts.get(0).getId());
+        assertEquals(10L, ((TemplateShiftDTO) shifts.get(0)).getTemplateId());
+    }
+
+    @Test
+    void storedShiftOverridesTemplateDay() {
+        when(rosterCache.templates(1L)).thenReturn(List.of(
+                template(10L, 5L, List.of(DayOfWeek.MONDAY), MONDAY, MONDAY.plusDays(7))));
+        ShiftListDTO stored = new ShiftListDTO(99L, 5L, "Matti", "Meikäläinen", 0, MONDAY, LocalTime.of(12, 0),
+                null, "", 1L, "Firma");
+
+        List<ShiftListDTO> shifts = service.withTemplates(1L, List.of(stored), MONDAY, userId -> true);
+
+        assertEquals(2, shifts.size());
+        assertSame(stored, shifts.get(0));
+        assertTrue(shifts.get(1) instanceof TemplateShiftDTO);
+        assertEquals(MONDAY.plusDays(7), shifts.get(1).getDate());
+    }
+
+    @Test
+    void userFilterAndNoTemplates() {
+        when(rosterCache.templates(1L)).thenReturn(List.of(
+                template(10L, 5L, List.of(DayOfWeek.values()), MONDAY, null)));
+        List<ShiftListDTO> stored = List.of();
+
+        assertSame(stored, service.withTemplates(1L, stored, MONDAY, userId -> userId != 5L));
+        when(rosterCache.templates(2L)).thenReturn(List.of());
+        assertSame(stored, service.withTemplates(2L, stored, MONDAY, userId -> true));
+    }
+
+    private static ShiftTemplateDTO template(Long id, Long userId, List<DayOfWeek> days, LocalDate validFrom, LocalDate validTo) {
+        return new ShiftTemplateDTO(id, userId, "Etu", "Suku", days, LocalTime.of(9, 0), LocalTime.of(17, 0), 30, null,
+                validFrom, validTo, 1L, "Firma");
+    }
+}
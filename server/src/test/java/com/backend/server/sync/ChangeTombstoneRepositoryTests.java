@@ -0,0 +1,87 @@
+package com.backend.server.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+// poistomerkintöjen siivous (DataBaseCleaner.cleanOldTombstones): uusin siivottava jää rajamerkiksi,
+// vanhemmat poistetaan, ja raja siirtyy seuraavassa siivouksessa
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:tombstones;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;INIT=CREATE DOMAIN IF NOT EXISTS jsonb AS JSON",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database=H2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ChangeTombstoneRepositoryTests {
+
+    private static final Long COMPANY = 1L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private ChangeTombstoneRepository tombstoneRepository;
+
+    @Test
+    void pruneKeepsHorizonMarkerAndDeletesOlderRows() {
+        LocalDateTime now = LocalDateTime.now();
+        tombstone(1, now.minusDays(90));
+        tombstone(2, now.minusDays(80));
+        tombstone(3, now.minusDays(70));
+        tombstone(4, now.minusDays(10));
+        tombstone(5, now.minusDays(1));
+        assertEquals(0, tombstoneRepository.findPrunedHorizon());
+
+        prune(now.minusDays(60));
+
+        assertEquals(3, tombstoneRepository.findPrunedHorizon());
+        assertEquals(List.of(3L, 4L, 5L), tombstoneRepository.findAll().stream()
+                .map(ChangeTombstone::getChangeSeq).sorted().toList());
+        ChangeTombstone marker = tombstoneRepository.findById(3L).orElseThrow();
+        assertEquals(ChangeTombstone.PRUNED, marker.getEntityType());
+        assertNull(marker.getCompanyId());
+        // rajamerkki ei näy poistoina
+        assertEquals(List.of(4L, 5L), tombstoneRepository.findSince(COMPANY, null, ChangeTombstone.SHIFT, 0,
+                PageRequest.of(0, 10)).stream().map(ChangeTombstone::getChangeSeq).toList());
+
+        // seuraava siivous siirtää rajaa
+        prune(now.minusDays(5));
+
+        assertEquals(4, tombstoneRepository.findPrunedHorizon());
+        assertEquals(List.of(4L, 5L), tombstoneRepository.findAll().stream()
+                .map(ChangeTombstone::getChangeSeq).sorted().toList());
+    }
+
+    @Test
+    void pruneWithNothingOldKeepsEverything() {
+        tombstone(1, LocalDateTime.now().minusDays(1));
+
+        prune(LocalDateTime.now().minusDays(60));
+
+        assertEquals(0, tombstoneRepository.findPrunedHorizon());
+        assertEquals(1, tombstoneRepository.count());
+    }
+
+    private void prune(LocalDateTime cutOff) {
+        tombstoneRepository.markPrunedHorizon(cutOff);
+        tombstoneRepository.deleteBelowPrunedHorizon();
+        entityManager.clear();
+    }
+
+    private void tombstone(long seq, LocalDateTime deletedAt) {
+        entityManager.persist(new ChangeTombstone(seq, ChangeTombstone.SHIFT, 1000 + seq, 5L, COMPANY, deletedAt));
+        entityManager.flush();
+    }
+}
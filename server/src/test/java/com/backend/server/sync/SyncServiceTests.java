@@ -0,0 +1,138 @@
+package com.backend.server.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.backend.server.reportedhours.WorkDayRepository;
+import com.backend.server.shifts.ShiftRepository;
+import com.backend.server.sync.DTO.ChangesDTO;
+import com.backend.server.sync.DTO.ShiftChangeDTO;
+
+// muuttuneiden ja poistettujen rivien yhdistäminen sivuksi: järjestys, sivun raja ja cursor, reset siivouksen jälkeen
+class SyncServiceTests {
+
+    private static final Long COMPANY = 1L;
+
+    private ShiftRepository shiftRepository;
+    private ChangeTombstoneRepository tombstoneRepository;
+    private SyncService service;
+
+    @BeforeEach
+    void setUp() {
+        shiftRepository = mock(ShiftRepository.class);
+        tombstoneRepository = mock(ChangeTombstoneRepository.class);
+        service = new SyncService(shiftRepository, mock(WorkDayRepository.class), tombstoneRepository);
+        ReflectionTestUtils.setField(service, "pageMaxSize", 100);
+    }
+
+    @Test
+    void changedAndDeletedInterleavedBySequence() {
+        changes(2, 5, 6);
+        deletions(3, 4, 7);
+
+        ChangesDTO<ShiftChangeDTO> page = service.getShiftChanges(COMPANY, null, 1, null);
+
+        assertEquals(List.of(2L, 5L, 6L), page.getChanged().stream().map(ShiftChangeDTO::getChangeSeq).toList());
+        assertEquals(List.of(1003L, 1004L, 1007L), page.getDeleted());  // entity id = 1000 + seq
+        assertEquals(7, page.getNextCursor());
+        assertFalse(page.isHasMore());
+        assertFalse(page.isReset());
+    }
+
+    @Test
+    void pageStopsAtLimitWithCursorOnLastRow() {
+        // repositoryt palauttavat limit + 1 riviä
+        changes(2, 5, 6, 8);
+        deletions(3, 4, 7, 9);
+
+        ChangesDTO<ShiftChangeDTO> page = service.getShiftChanges(COMPANY, 5L, 1, 3);
+
+        assertEquals(List.of(2L), page.getChanged().stream().map(ShiftChangeDTO::getChangeSeq).toList());
+        assertEquals(List.of(1003L, 1004L), page.getDeleted());
+        assertEquals(4, page.getNextCursor());
+        assertTrue(page.isHasMore());
+        verify(shiftRepository).findChangesSince(COMPANY, 5L, 1, PageRequest.of(0, 4));
+    }
+
+    @Test
+    void exactlyFullPageHasNoMore() {
+        changes(2, 3);
+        deletions(4);
+
+        ChangesDTO<ShiftChangeDTO> page = service.getShiftChanges(COMPANY, null, 1, 3);
+
+        assertEquals(3, page.getChanged().size() + page.getDeleted().size());
+        assertEquals(4, page.getNextCursor());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void emptyPageKeepsCursor() {
+        changes();
+        deletions();
+
+        ChangesDTO<ShiftChangeDTO> page = service.getShiftChanges(COMPANY, null, 42, null);
+
+        assertEquals(42, page.getNextCursor());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void cursorOlderThanPrunedHorizonResets() {
+        when(tombstoneRepository.findPrunedHorizon()).thenReturn(10L);
+
+        ChangesDTO<ShiftChangeDTO> page = service.getShiftChanges(COMPANY, null, 9, null);
+
+        assertTrue(page.isReset());
+        assertEquals(0, page.getNextCursor());
+        verify(shiftRepository, never()).findChangesSince(any(), any(), anyLong(), any());
+
+        // rajalla ja ensimmäisellä haulla ei resetiä
+        changes();
+        deletions();
+        assertFalse(service.getShiftChanges(COMPANY, null, 10, null).isReset());
+        assertFalse(service.getShiftChanges(COMPANY, null, 0, null).isReset());
+    }
+
+    @Test
+    void rejectsInvalidCursorAndLimit() {
+        assertThrows(IllegalArgumentException.class, () -> service.getShiftChanges(COMPANY, null, -1, null));
+        assertThrows(IllegalArgumentException.class, () -> service.getShiftChanges(COMPANY, null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getShiftChanges(COMPANY, null, 0, 101));
+    }
+
+    private void changes(long... seqs) {
+        when(shiftRepository.findChangesSince(eq(COMPANY), any(), anyLong(), any())).thenReturn(Arrays.stream(seqs)
+                .mapToObj(seq -> new ShiftChangeDTO(seq, 100 + seq, 5L, "Etu", "Suku", 0, LocalDate.of(2024, 5, 2),
+                        LocalTime.of(8, 0), null, "", COMPANY, "Firma"))
+                .toList());
+    }
+
+    private void deletions(long... seqs) {
+        when(tombstoneRepository.findSince(eq(COMPANY), any(), eq(ChangeTombstone.SHIFT), anyLong(), any()))
+                .thenReturn(Arrays.stream(seqs)
+                        .mapToObj(seq -> new ChangeTombstone(seq, ChangeTombstone.SHIFT, 1000 + seq, 5L, COMPANY,
+                                LocalDateTime.now()))
+                        .toList());
+    }
+}
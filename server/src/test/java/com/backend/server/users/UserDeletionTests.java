@@ -0,0 +1,73 @@
+package com.backend.server.users;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.backend.server.companies.Company;
+import com.backend.server.reportedhours.MonthlyHours;
+import com.backend.server.reportedhours.WorkDay;
+import com.backend.server.utility.Role;
+
+// Käyttäjän poisto (SecurityService.deleteUserAndApprovedEmail) kun käyttäjällä on raportoituja päiviä ja
+// niistä laskettuja kuukausisummia: monthly_hours rivit poistuvat käyttäjän mukana, FK ei estä poistoa
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:userdeletion;MODE=PostgreSQL;NON_KEYWORDS=MONTH;DATABASE_TO_LOWER=TRUE;INIT=CREATE DOMAIN IF NOT EXISTS jsonb AS JSON",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database=H2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserDeletionTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void deletingUserRemovesMonthlyHours() {
+        Company company = new Company();
+        company.setCompanyName("Testiyritys");
+        entityManager.persist(company);
+
+        User user = new User();
+        user.setEmail("worker@example.com");
+        user.setPassword("hash");
+        user.setRole(Role.WORKER);
+        user.setCompany(company);
+        entityManager.persist(user);
+
+        WorkDay workDay = new WorkDay();
+        workDay.setUser(user);
+        workDay.setDate(LocalDate.of(2024, 5, 2));
+        workDay.setStartTime(LocalTime.of(8, 0));
+        workDay.setEndTime(LocalTime.of(16, 0));
+        workDay.setIsHoliday(false);
+        entityManager.persist(workDay);
+        entityManager.persist(new MonthlyHours(null, user, LocalDate.of(2024, 5, 1), 480L, 0L, 0L, 1L));
+        entityManager.flush();
+        entityManager.clear();  // poisto ladatulla entityllä kuten controllerissa
+
+        userRepository.delete(userRepository.findById(user.getId()).orElseThrow());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+        assertEquals(0L, entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(m) FROM MonthlyHours m", Long.class).getSingleResult());
+        assertEquals(0L, entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(w) FROM WorkDay w", Long.class).getSingleResult());
+    }
+}
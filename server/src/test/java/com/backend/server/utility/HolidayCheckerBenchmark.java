@@ -0,0 +1,82 @@
+package com.backend.server.utility;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Vertailu: vanha isHoliday (HashSet parsitaan propertiesista joka kutsulla) vs vuosikalenteri (BitSet).
+// Allokoinnit näkyvät -prof gc ajolla (gc.alloc.rate.norm).
+// Ajo: mvn test-compile, sitten main metodi IDE:stä tai test classpathilla.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HolidayCheckerBenchmark {
+
+    private static final String FIXED = "01-01,01-06,05-01,12-06,12-24,12-25,12-26";
+    private static final String VARIABLE = "2023-04-07,2023-04-10,2023-05-18,2023-06-23";
+
+    private HolidayChecker holidayChecker;
+    private LocalDate[] dates;
+    private int next;
+
+    @Setup
+    public void setup() {
+        ComputedHolidayProvider computed = new ComputedHolidayProvider();
+        computed.setFixedHolidays(FIXED);
+        computed.setVariableHolidays("");
+        holidayChecker = new HolidayChecker(computed, null);
+        holidayChecker.setUseHolidayApi(false);
+        dates = new LocalDate[1024];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = LocalDate.of(2023, 1, 1).plusDays(i);
+        }
+    }
+
+    @Benchmark
+    public Boolean legacyHashSet() {
+        return legacyIsHoliday(dates[next++ & 1023]);
+    }
+
+    @Benchmark
+    public Boolean yearCalendar() {
+        return holidayChecker.isHoliday(dates[next++ & 1023]);
+    }
+
+    // HolidayChecker.isHoliday ennen vuosikalenteria
+    private static Boolean legacyIsHoliday(LocalDate date) {
+        if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            return true;
+        }
+        Set<LocalDate> holidays = new HashSet<>();
+        for (String fixedHoliday : FIXED.split(",")) {
+            holidays.add(LocalDate.parse(date.getYear() + "-" + fixedHoliday));
+        }
+        for (String variableHoliday : VARIABLE.split(",")) {
+            holidays.add(LocalDate.parse(variableHoliday));
+        }
+        return holidays.contains(date);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HolidayCheckerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
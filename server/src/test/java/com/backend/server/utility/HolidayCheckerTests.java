@@ -0,0 +1,54 @@
+package com.backend.server.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// lasketut vaihtelevat pyhät vs. aiemmin käsin propertiesiin kirjatut ja almanakan päivät
+class HolidayCheckerTests {
+
+    private HolidayChecker holidayChecker;
+
+    @BeforeEach
+    void setUp() {
+        ComputedHolidayProvider computed = new ComputedHolidayProvider();
+        computed.setFixedHolidays("01-01,01-06,05-01,12-06,12-24,12-25,12-26");
+        computed.setVariableHolidays("2024-08-16");
+        holidayChecker = new HolidayChecker(computed, null);
+        holidayChecker.setUseHolidayApi(false);
+    }
+
+    @Test
+    void easterSunday() {
+        assertEquals(LocalDate.of(2023, 4, 9), ComputedHolidayProvider.easterSunday(2023));
+        assertEquals(LocalDate.of(2024, 3, 31), ComputedHolidayProvider.easterSunday(2024));
+        assertEquals(LocalDate.of(2025, 4, 20), ComputedHolidayProvider.easterSunday(2025));
+        assertEquals(LocalDate.of(2038, 4, 25), ComputedHolidayProvider.easterSunday(2038));
+    }
+
+    @Test
+    void movableHolidays() {
+        // 2023 vanhasta holidays.variable arvosta
+        for (String date : new String[] {"2023-04-07", "2023-04-10", "2023-05-18", "2023-06-23",
+                                         "2024-03-29", "2024-04-01", "2024-05-09", "2024-06-21", "2024-06-22", "2024-11-02",
+                                         "2025-04-18", "2025-04-21", "2025-05-29", "2025-06-20", "2025-06-21", "2025-11-01"}) {
+            assertTrue(holidayChecker.isHoliday(LocalDate.parse(date)), date);
+        }
+    }
+
+    @Test
+    void fixedExtraAndWorkingDays() {
+        assertTrue(holidayChecker.isHoliday(LocalDate.of(2024, 12, 6)));
+        assertTrue(holidayChecker.isHoliday(LocalDate.of(2024, 8, 16)));  // holidays.variable lisäpäivä
+        assertTrue(holidayChecker.isHoliday(LocalDate.of(2024, 6, 23)));  // sunnuntai
+        assertFalse(holidayChecker.isHoliday(LocalDate.of(2025, 8, 16)));
+        assertFalse(holidayChecker.isHoliday(LocalDate.of(2024, 6, 20)));
+        assertFalse(holidayChecker.isHoliday(LocalDate.of(2024, 12, 31)));  // karkausvuoden viimeinen päivä
+        assertTrue(holidayChecker.isHoliday(LocalDate.of(2300, 12, 25)));  // välimuistin ulkopuolella
+    }
+}
@@ -0,0 +1,116 @@
+package com.backend.server.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import com.sun.net.httpserver.HttpServer;
+
+// RemoteHolidayProvider paikallista stub APIa vasten (calendarific muotoinen vastaus), välimuisti H2:ssa
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:holidays;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;INIT=CREATE DOMAIN IF NOT EXISTS jsonb AS JSON",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database=H2",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RemoteHolidayProviderTests {
+
+    private static final String RESPONSE = "{\"meta\":{\"code\":200},\"response\":{\"holidays\":["
+            + "{\"name\":\"Uudenvuodenpäivä\",\"date\":{\"iso\":\"2024-01-01\"},\"type\":[\"National holiday\"]},"
+            + "{\"name\":\"Runebergin päivä\",\"date\":{\"iso\":\"2024-02-05\"},\"type\":[\"Observance\"]},"
+            + "{\"name\":\"Juhannusaatto\",\"date\":{\"iso\":\"2024-06-21T00:00:00+03:00\"},\"type\":[\"National holiday\"]}]}}";
+
+    @Autowired
+    private HolidayCacheRepository holidayCacheRepository;
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile int status = 200;
+    private RemoteHolidayProvider provider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/holidays", exchange -> {
+            calls.incrementAndGet();
+            byte[] body = (status == 200 ? RESPONSE : "{\"meta\":{\"code\":429}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        provider = new RemoteHolidayProvider(new RestTemplateBuilder(), holidayCacheRepository);
+        provider.setApiUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/holidays");
+        provider.setApiKey("test");
+        provider.setCountry("FI");
+        provider.setCacheDays(30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesYearOnceAndServesFromCache() {
+        Set<LocalDate> first = provider.holidays(2024);
+        Set<LocalDate> second = provider.holidays(2024);
+
+        assertEquals(Set.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 6, 21)), first);
+        assertEquals(first, second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void expiredCacheIsUsedWhenApiFails() {
+        provider.holidays(2024);
+        HolidayCache cached = holidayCacheRepository.findByCountryAndYear("FI", 2024).orElseThrow();
+        cached.setFetchedAt(Instant.now().minus(31, ChronoUnit.DAYS));
+        holidayCacheRepository.save(cached);
+        status = 500;
+
+        assertTrue(provider.holidays(2024).contains(LocalDate.of(2024, 6, 21)));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void checkerFallsBackToComputedCalendar() {
+        status = 500;
+        assertThrows(RuntimeException.class, () -> provider.holidays(2025));
+
+        ComputedHolidayProvider computed = new ComputedHolidayProvider();
+        computed.setFixedHolidays("01-01,12-25");
+        computed.setVariableHolidays("");
+        HolidayChecker holidayChecker = new HolidayChecker(computed, provider);
+        holidayChecker.setUseHolidayApi(true);
+
+        assertTrue(holidayChecker.isHoliday(LocalDate.of(2025, 6, 20)));  // juhannusaatto laskettuna
+        assertFalse(holidayChecker.isHoliday(LocalDate.of(2025, 6, 18)));
+    }
+}